@@ -1,15 +1,29 @@
 package com.siemens.internship;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan // Picks up our @ConfigurationProperties classes in the config package.
 @EnableAsync // Gotta turn on Spring's async magic so @Async works
+@EnableCaching // For the item cache in ItemService (Caffeine, see application.properties)
+@EnableScheduling // Periodic rebuild of the item id filter.
 public class InternshipApplication {
 
 	public static void main(String[] args) {
@@ -20,15 +34,92 @@ public class InternshipApplication {
 	 * Setting up a specific thread pool for our background jobs.
 	 * Don't want to use the default for everything, more control this way.
 	 * This "taskExecutor" bean name can be used in @Async("taskExecutor").
+	 * It only hosts the job coordinators (processItemsAsync), which spend most of their time waiting for
+	 * their chunks. The chunks themselves run on itemWorkerExecutor: if they queued up behind the coordinators
+	 * on this same pool, a handful of concurrent jobs would sit on every thread waiting for work that never starts.
 	 */
 	@Bean(name = "taskExecutor")
-	public Executor taskExecutor() {
+	@ConditionalOnProperty(name = "item.processing.executor", havingValue = "platform", matchIfMissing = true)
+	public Executor taskExecutor(MeterRegistry meterRegistry) {
 		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
 		executor.setCorePoolSize(5);    // Start with 5 threads
 		executor.setMaxPoolSize(10);    // Can go up to 10 if needed
 		executor.setQueueCapacity(25);  // How many tasks can wait if all threads are busy
 		executor.setThreadNamePrefix("ItemProcessing-"); // So I know which threads are doing what
+		// Pool and queue full? Reject (the controller answers 503). No caller-runs here: that would run
+		// the whole job on the HTTP thread, and /process is supposed to return 202 right away.
+		// (Active threads, pool size and queue depth come from Boot's executor.* metrics for this bean.)
+		executor.setRejectedExecutionHandler(countingRejections(meterRegistry, "taskExecutor", new ThreadPoolExecutor.AbortPolicy()));
 		executor.initialize();
 		return executor;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Where the processing job's chunk updates run. Sized like the connection pool, that's the real limit.
+	 * Workers never wait on each other or on a coordinator, so this pool can't starve itself.
+	 */
+	@Bean(name = "itemWorkerExecutor")
+	@ConditionalOnProperty(name = "item.processing.executor", havingValue = "platform", matchIfMissing = true)
+	public Executor itemWorkerExecutor(MeterRegistry meterRegistry,
+									   @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(connectionPoolSize);
+		executor.setMaxPoolSize(connectionPoolSize);
+		executor.setQueueCapacity(100);
+		executor.setThreadNamePrefix("ItemWorker-");
+		// Pool and queue full? Run the chunk on the submitting job's thread instead of throwing
+		// RejectedExecutionException. Slows that job down (back-pressure) rather than losing work.
+		executor.setRejectedExecutionHandler(countingRejections(meterRegistry, "itemWorkerExecutor", new ThreadPoolExecutor.CallerRunsPolicy()));
+		executor.initialize();
+		return executor;
+	}
+
+	// We count rejections, lots of them means the pool is undersized.
+	private static RejectedExecutionHandler countingRejections(MeterRegistry meterRegistry, String name, RejectedExecutionHandler handler) {
+		Counter rejections = Counter.builder("executor.rejected")
+				.tag("name", name)
+				.description("Tasks the pool couldn't take (rejected, or run on the caller thread instead)")
+				.register(meterRegistry);
+		return (task, pool) -> {
+			rejections.increment();
+			handler.rejectedExecution(task, pool);
+		};
+	}
+
+	/**
+	 * Alternative "taskExecutor" for item.processing.executor=virtual (needs Java 21).
+	 * Every job coordinator gets its own virtual thread. No concurrency limit here: a coordinator mostly waits
+	 * for its chunks, and if it took one of the DB permits below, enough concurrent jobs would hold all of them
+	 * while their chunks wait forever. Capping it would also block the HTTP thread calling processItemsAsync.
+	 */
+	@Bean(name = "taskExecutor")
+	@ConditionalOnProperty(name = "item.processing.executor", havingValue = "virtual")
+	public Executor virtualThreadTaskExecutor() {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ItemProcessing-");
+		executor.setVirtualThreads(true);
+		return executor;
+	}
+
+	/**
+	 * Virtual-thread "itemWorkerExecutor": every chunk gets its own virtual thread, so blocking JPA calls
+	 * don't tie up a scarce platform thread. The real limit is the database, so at most Hikari-pool-size chunks
+	 * run their DB work at once. That limit is a semaphore taken inside the task, not a concurrencyLimit:
+	 * execute() never blocks the submitter, the extra virtual threads just wait for a permit (which costs next to nothing).
+	 */
+	@Bean(name = "itemWorkerExecutor")
+	@ConditionalOnProperty(name = "item.processing.executor", havingValue = "virtual")
+	public Executor virtualThreadWorkerExecutor(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ItemWorker-");
+		executor.setVirtualThreads(true);
+		Semaphore connections = new Semaphore(connectionPoolSize); // No point running more DB work than we have connections.
+		executor.setTaskDecorator(task -> () -> {
+			connections.acquireUninterruptibly();
+			try {
+				task.run();
+			} finally {
+				connections.release();
+			}
+		});
+		return executor;
+	}
+}
@@ -0,0 +1,61 @@
+package com.siemens.internship.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Knobs for single-item reads (ItemService.findById on a cache miss), bound from "item.lookup.*".
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "item.lookup")
+public class ItemLookupProperties {
+
+    /**
+     * How long a cache miss waits for other lookups to share its query with (see ItemBatchLoader).
+     * This is added latency for a lone request, so keep it tiny. Zero turns batching off.
+     */
+    private Duration batchWindow = Duration.ofMillis(1);
+
+    /**
+     * A batch is sent as soon as this many different ids are waiting, window or not.
+     * Also the size of the IN list, so don't go wild.
+     */
+    private int maxBatchSize = 100;
+
+    /**
+     * How many batch queries closed by the window may run at the same time. Each one holds a connection,
+     * so keep it well below the connection pool size. Batches beyond that wait their turn.
+     */
+    private int maxConcurrentBatches = 4;
+
+    /**
+     * Bloom filter of existing ids, for answering "no such item" without a query (see ItemIdFilter).
+     */
+    private final IdFilter idFilter = new IdFilter();
+
+    @Getter
+    @Setter
+    public static class IdFilter {
+
+        /**
+         * Off by default: between rebuilds it only knows about items created through this instance,
+         * so turn it on only when this instance sees all the writes.
+         */
+        private boolean enabled = false;
+
+        /**
+         * How often an id that doesn't exist still gets through to the database. Lower = bigger filter.
+         */
+        private double falsePositiveRate = 0.01;
+
+        /**
+         * How often the filter is rebuilt from the table, which is also when deleted ids drop out.
+         * Read by the @Scheduled on ItemIdFilter.rebuild.
+         */
+        private Duration rebuildInterval = Duration.ofMinutes(5);
+    }
+}
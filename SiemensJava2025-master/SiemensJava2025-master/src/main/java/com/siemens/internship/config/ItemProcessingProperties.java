@@ -0,0 +1,69 @@
+package com.siemens.internship.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Knobs for the background processing job (the /api/items/process one).
+ * Bound from the "item.processing.*" properties, defaults are sane for H2.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "item.processing")
+public class ItemProcessingProperties {
+
+    /**
+     * How many items we read and update per round trip.
+     * Bigger chunks = fewer statements, but longer row locks per commit.
+     */
+    private int chunkSize = 1000;
+
+    /**
+     * How many chunks may be updating at the same time.
+     * The job waits for a free slot before reading the next chunk, so this bounds
+     * both memory (chunks held) and load on the itemWorkerExecutor / connection pool.
+     * Concurrent jobs each get this many, and share the worker pool.
+     */
+    private int maxInFlightChunks = 4;
+
+    /**
+     * How many chunks are committed together in one transaction.
+     * 1 = a commit per chunk. Higher amortizes the commit cost over more rows while keeping each
+     * UPDATE's IN list at chunk-size; the price is more rows to redo if that transaction has to roll back.
+     * With more than 1, max-in-flight-chunks counts these batches, not single chunks.
+     */
+    private int commitInterval = 1;
+
+    /**
+     * How long a job's claim on a chunk lasts. Other nodes leave claimed items alone until it runs out,
+     * so it has to comfortably cover processing one chunk. If a node dies mid-chunk, its items become
+     * claimable again after this long.
+     */
+    private Duration leaseDuration = Duration.ofMinutes(5);
+
+    /**
+     * How often a status update that lost a race (lock timeout, deadlock) is retried
+     * before the chunk falls back to item-by-item / the item is counted as failed.
+     */
+    private int maxRetries = 3;
+
+    /**
+     * Wait before the first retry, doubled (plus some jitter) on every further attempt.
+     */
+    private Duration retryBackoff = Duration.ofMillis(50);
+
+    /**
+     * Which executors back the job (the "taskExecutor" coordinator and the "itemWorkerExecutor" chunks):
+     * fixed platform thread pools, or virtual threads with chunk DB work capped at the Hikari pool size (Java 21+).
+     * With VIRTUAL, max-in-flight-chunks can go up to the connection pool size, there's no thread pool to size anymore.
+     */
+    private ExecutorType executor = ExecutorType.PLATFORM;
+
+    public enum ExecutorType {
+        PLATFORM,
+        VIRTUAL
+    }
+}
@@ -0,0 +1,33 @@
+package com.siemens.internship.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Limits for streamed responses (GET /api/items?stream=true), bound from "item.streaming.*".
+ * The body is written on Spring MVC's async executor, configured in WebAsyncConfig.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "item.streaming")
+public class ItemStreamingProperties {
+
+    /**
+     * How many streams are written at the same time. Each one keeps a thread busy for as long as the
+     * client takes to read the table, so this is the cap on threads tied up by slow clients.
+     */
+    private int maxConcurrentStreams = 16;
+
+    /**
+     * Streams waiting for a free thread. Beyond that new streams are turned away with a 503.
+     */
+    private int queueCapacity = 32;
+
+    /**
+     * How long one stream may take before it's cut off. Generous, the whole table can be big.
+     */
+    private Duration timeout = Duration.ofMinutes(10);
+}
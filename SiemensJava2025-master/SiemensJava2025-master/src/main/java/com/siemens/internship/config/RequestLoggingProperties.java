@@ -0,0 +1,33 @@
+package com.siemens.internship.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings for the sampled request log (RequestLoggingFilter), bound from "item.request-logging.*".
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "item.request-logging")
+public class RequestLoggingProperties {
+
+    /**
+     * Fraction of ordinary requests that get a log line, 0.0 - 1.0.
+     */
+    private double defaultSampleRate = 0.01;
+
+    /**
+     * Per-endpoint overrides, keyed by "METHOD /path/pattern", e.g. "GET /api/items/{id}".
+     * In a properties file the key needs brackets and an escaped space: item.request-logging.sample-rates[GET\ /api/items/{id}]=0.001
+     */
+    private Map<String, Double> sampleRates = new HashMap<>();
+
+    /**
+     * Requests slower than this are always logged, whatever the sample rate says.
+     */
+    private long slowRequestThresholdMs = 500;
+}
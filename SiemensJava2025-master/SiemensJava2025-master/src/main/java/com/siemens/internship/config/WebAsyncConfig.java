@@ -0,0 +1,46 @@
+package com.siemens.internship.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Where Spring MVC runs async work, i.e. the StreamingResponseBody of GET /api/items?stream=true.
+ * Since we define our own Executor beans, Boot doesn't create its applicationTaskExecutor, and MVC would
+ * fall back to a SimpleAsyncTaskExecutor: a brand new thread per streaming request, no limit at all.
+ * This gives it a bounded pool of its own instead (not taskExecutor, streams would crowd out processing jobs).
+ */
+@Configuration
+public class WebAsyncConfig implements WebMvcConfigurer {
+
+    private final ItemStreamingProperties properties;
+
+    public WebAsyncConfig(ItemStreamingProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean(name = "mvcAsyncExecutor")
+    public AsyncTaskExecutor mvcAsyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getMaxConcurrentStreams());
+        executor.setMaxPoolSize(properties.getMaxConcurrentStreams());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("ItemStream-");
+        // Pool and queue full: reject, the controller turns that into a 503. Caller-runs would write the
+        // stream on the servlet container thread, which is exactly what the async executor is there to avoid.
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor());
+        configurer.setDefaultTimeout(properties.getTimeout().toMillis()); // Past that MVC gives up on the stream (503 if nothing was written yet).
+    }
+}
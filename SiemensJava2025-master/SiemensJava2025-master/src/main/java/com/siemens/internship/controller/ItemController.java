@@ -1,35 +1,78 @@
 package com.siemens.internship.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemRepositoryCustom;
+import com.siemens.internship.service.ItemLookupResult;
+import com.siemens.internship.service.ItemProcessingJob;
+import com.siemens.internship.service.ItemProcessingSummary;
 import com.siemens.internship.service.ItemService;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/items") // All item stuff goes through here.
 public class ItemController {
 
-    private static final Logger logger = LoggerFactory.getLogger(ItemController.class); // Controller logs, good for seeing requests.
+    private static final Logger logger = LoggerFactory.getLogger(ItemController.class); // Per-request lines are DEBUG, RequestLoggingFilter does the sampled access log.
+
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000; // Keep single pages reasonable, use ?stream=true for bulk reads.
+
+    static final int MAX_BATCH_ITEMS = 10_000; // JSON array batches are all-or-nothing, so keep them bounded.
+    static final int MAX_LOOKUP_IDS_IN_URL = 200; // ?ids= lives in the URL, longer lists go through POST /lookup.
+    static final int NDJSON_COMMIT_SIZE = 500; // Items per transaction when streaming NDJSON.
+    static final int MAX_REPORTED_REJECTIONS = 1000;
+    static final String NDJSON = "application/x-ndjson";
 
     private final ItemService itemService;
+    private final ObjectMapper objectMapper; // Needed to write JSON ourselves when streaming.
+    private final Validator validator; // For validating batch elements one by one.
 
     @Autowired
-    public ItemController(ItemService itemService) { // Injecting the service.
+    public ItemController(ItemService itemService, ObjectMapper objectMapper, Validator validator) { // Injecting the service.
         this.itemService = itemService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
     }
 
     // Helper to make bad request responses look nice with error details.
@@ -38,86 +81,401 @@ public class ItemController {
                 .collect(Collectors.toMap(FieldError::getField,
                         fieldError -> fieldError.getDefaultMessage() == null ? "Invalid value" : fieldError.getDefaultMessage()
                 ));
-        logger.warn("Validation failed: {}", errors);
+        logger.debug("Validation failed: {}", errors);
         return ResponseEntity.badRequest().body(errors); // 400 Bad Request with the errors.
     }
 
-    // GET /api/items - fetch everything.
+    /**
+     * GET /api/items - fetch everything, or one keyset page of it.
+     * Without parameters it's the old "give me the whole table" call.
+     * With ?after=<id>&limit=N it returns the next N items after that id, plus a
+     * Link rel="next" header pointing at the following page when there might be more.
+     * ?status=NEW (etc.) narrows the page to items in that status, read straight off the status index.
+     * Every response has an ETag; send it back in If-None-Match and an unchanged list/page comes back
+     * as an empty 304 instead of being serialized again.
+     */
     @GetMapping
-    public ResponseEntity<List<Item>> getAllItems() {
-        logger.info("Received request to get all items");
-        List<Item> items = itemService.findAll();
-        return ResponseEntity.ok(items); // 200 OK.
+    public ResponseEntity<List<Item>> getAllItems(@RequestParam(required = false) Long after,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  @RequestParam(required = false) ItemStatus status) {
+        if (after == null && limit == null && status == null) {
+            logger.debug("Received request to get all items");
+            List<Item> items = itemService.findAll();
+            return ResponseEntity.ok().eTag(etagOf(items)).body(items); // 200 OK, or 304 if the client's copy is current.
+        }
+
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        long afterId = after == null ? 0L : after;
+        logger.debug("Received request to get {} items after id {} (status {})", pageSize, afterId, status);
+        List<Item> items = status == null
+                ? itemService.findPage(afterId, pageSize)
+                : itemService.findPageByStatus(status, afterId, pageSize);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etagOf(items));
+        if (items.size() == pageSize) { // Full page, so there may be more behind it.
+            long nextAfter = items.get(items.size() - 1).getId();
+            String statusParam = status == null ? "" : "&status=" + status;
+            response.header(HttpHeaders.LINK,
+                    "</api/items?after=" + nextAfter + "&limit=" + pageSize + statusParam + ">; rel=\"next\"");
+        }
+        return response.body(items);
+    }
+
+    /**
+     * GET /api/items?fields=id,name,status - the same keyset pages as above, but only the requested
+     * fields are SELECTed and serialized (id is always included, the next-page cursor needs it).
+     * Always paged (after / limit / status work as above), a bare ?fields= gets the first DEFAULT_PAGE_SIZE items.
+     * Unknown field names are a 400.
+     */
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getItemFields(@RequestParam List<String> fields,
+                                                                   @RequestParam(required = false) Long after,
+                                                                   @RequestParam(required = false) Integer limit,
+                                                                   @RequestParam(required = false) ItemStatus status) {
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        for (String field : fields) {
+            String name = field.trim();
+            if (!ItemRepositoryCustom.PROJECTABLE_FIELDS.contains(name)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown field '" + name + "', allowed: " + new TreeSet<>(ItemRepositoryCustom.PROJECTABLE_FIELDS));
+            }
+            selected.add(name);
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        long afterId = after == null ? 0L : after;
+        logger.debug("Received request to get fields {} of {} items after id {} (status {})", selected, pageSize, afterId, status);
+        List<Map<String, Object>> rows = itemService.findFieldsPage(selected, status, afterId, pageSize);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (rows.size() == pageSize) {
+            Object nextAfter = rows.get(rows.size() - 1).get("id");
+            String statusParam = status == null ? "" : "&status=" + status;
+            response.header(HttpHeaders.LINK, "</api/items?fields=" + String.join(",", selected) + "&after=" + nextAfter
+                    + "&limit=" + pageSize + statusParam + ">; rel=\"next\"");
+        }
+        return response.body(rows);
+    }
+
+    /**
+     * GET /api/items?ids=1,2,3 - many items in one call instead of one GET per id.
+     * Returns {"items": [...], "missingIds": [...]}, items in the order asked for.
+     * Up to MAX_LOOKUP_IDS_IN_URL ids, for more use POST /api/items/lookup.
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<ItemLookupResult> getItemsByIds(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_LOOKUP_IDS_IN_URL) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_LOOKUP_IDS_IN_URL + " ids in the URL, use POST /api/items/lookup for more");
+        }
+        return lookup(ids);
+    }
+
+    /**
+     * GET /api/items?ids=...&fields=... - projections aren't supported for id lookups.
+     * Mapped explicitly (two params beat one), otherwise both handlers above match equally and Spring answers 500.
+     */
+    @GetMapping(params = {"ids", "fields"})
+    public ResponseEntity<ItemLookupResult> getItemFieldsByIds() {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids and fields can't be combined");
+    }
+
+    /**
+     * GET /api/items?ids=...&stream=true, ?fields=...&stream=true - same story for streaming.
+     * "stream=true" carries a value, so Spring ranks it above a bare "ids" or "fields" and would quietly
+     * stream the whole table instead. Both mapped explicitly, plus all three together (otherwise those two tie).
+     */
+    @GetMapping(params = {"ids", "stream=true"})
+    public ResponseEntity<ItemLookupResult> streamItemsByIds() {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids and stream can't be combined");
+    }
+
+    @GetMapping(params = {"fields", "stream=true"})
+    public ResponseEntity<ItemLookupResult> streamItemFields() {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fields and stream can't be combined");
+    }
+
+    @GetMapping(params = {"ids", "fields", "stream=true"})
+    public ResponseEntity<ItemLookupResult> streamItemFieldsByIds() {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids, fields and stream can't be combined");
+    }
+
+    /**
+     * POST /api/items/lookup - same as GET ?ids=, with the ids as a JSON array body, up to MAX_BATCH_ITEMS of them.
+     * It's a read, nothing gets created; POST is only there because big id lists don't fit in a URL.
+     */
+    @PostMapping(value = "/lookup", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ItemLookupResult> lookupItems(@RequestBody List<Long> ids) {
+        if (ids.size() > MAX_BATCH_ITEMS) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "At most " + MAX_BATCH_ITEMS + " ids per lookup");
+        }
+        return lookup(ids);
+    }
+
+    private ResponseEntity<ItemLookupResult> lookup(List<Long> ids) {
+        if (ids.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids must not contain null");
+        }
+        logger.debug("Received request to look up {} items", ids.size());
+        return ResponseEntity.ok(itemService.findAllByIds(ids));
+    }
+
+    /**
+     * GET /api/items?stream=true - the whole table, written out as a JSON array item by item.
+     * Memory stays flat no matter how many rows there are: we never build the full List,
+     * the service pages through the table and we push each item straight to the response.
+     * The body is written on the bounded MVC async pool (see WebAsyncConfig); when that's full it's a 503.
+     */
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllItems() {
+        logger.debug("Received request to stream all items");
+        StreamingResponseBody body = out -> {
+            try (Stream<Item> items = itemService.streamAll();
+                 JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                Iterator<Item> iterator = items.iterator();
+                while (iterator.hasNext()) {
+                    json.writeObject(iterator.next());
+                }
+                json.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     // POST /api/items - make a new item. Validate first!
     @PostMapping
     public ResponseEntity<?> createItem(@Valid @RequestBody Item item, BindingResult result) {
-        logger.info("Received request to create item: {}", item.getName());
+        logger.debug("Received request to create item: {}", item.getName());
         if (result.hasErrors()) {
             return handleValidationErrors(result); // If validation fails, send back 400.
         }
+        // Always a new row: never let the payload pick (or overwrite) an id, and new rows start at version 0.
+        // A null version with an id set would also make save() try to persist() that id, which Hibernate rejects.
+        item.setId(null);
+        item.setVersion(null);
         Item savedItem = itemService.save(item);
         // Return 201 Created, and a Location header pointing to the new item.
         return ResponseEntity.created(URI.create("/api/items/" + savedItem.getId()))
                 .body(savedItem);
     }
 
+    /**
+     * POST /api/items/batch - create many items at once from a JSON array.
+     * Every element is validated first; if any is invalid nothing is saved and we return 400 with
+     * the errors keyed by array index. Otherwise everything goes in one transaction, inserted in JDBC batches.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> createItems(@RequestBody List<Item> items) {
+        logger.debug("Received request to create {} items", items.size());
+        if (items.size() > MAX_BATCH_ITEMS) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "At most " + MAX_BATCH_ITEMS + " items per request, use application/x-ndjson for bigger loads");
+        }
+
+        Map<Integer, Map<String, String>> errors = new TreeMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            Map<String, String> itemErrors = validate(items.get(i));
+            if (!itemErrors.isEmpty()) {
+                errors.put(i, itemErrors);
+            }
+        }
+        if (!errors.isEmpty()) {
+            logger.debug("Batch validation failed for {} of {} items", errors.size(), items.size());
+            return ResponseEntity.badRequest().body(errors); // 400, nothing saved.
+        }
+
+        items.forEach(item -> {
+            item.setId(null); // Always new rows, never let the payload pick (or overwrite) ids.
+            item.setVersion(null);
+        });
+        List<Item> savedItems = itemService.saveAll(items);
+        return ResponseEntity.status(HttpStatus.CREATED).body(savedItems);
+    }
+
+    /**
+     * POST /api/items/batch with Content-Type application/x-ndjson - one item JSON per line, any number of lines.
+     * Read as a stream and saved every NDJSON_COMMIT_SIZE valid items, so memory stays flat for huge feeds.
+     * Since earlier batches are already committed, bad lines are skipped and reported instead of failing the lot.
+     */
+    @PostMapping(value = "/batch", consumes = NDJSON)
+    public ResponseEntity<Map<String, Object>> createItemsFromNdjson(InputStream body) throws IOException {
+        logger.debug("Received NDJSON batch create request");
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        List<Item> batch = new ArrayList<>(NDJSON_COMMIT_SIZE);
+        List<Map<String, Object>> rejected = new ArrayList<>();
+        long created = 0;
+        long rejectedCount = 0;
+        int lineNumber = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            Map<String, String> lineErrors;
+            Item item = null;
+            try {
+                item = objectMapper.readValue(line, Item.class);
+                lineErrors = validate(item);
+            } catch (JsonProcessingException e) {
+                lineErrors = Map.of("json", "Malformed JSON");
+            }
+            if (!lineErrors.isEmpty()) {
+                rejectedCount++;
+                if (rejected.size() < MAX_REPORTED_REJECTIONS) { // Don't let a garbage feed blow up the response.
+                    rejected.add(Map.of("line", lineNumber, "errors", lineErrors));
+                }
+                continue;
+            }
+
+            item.setId(null);
+            item.setVersion(null);
+            batch.add(item);
+            if (batch.size() == NDJSON_COMMIT_SIZE) {
+                created += itemService.saveAll(batch).size();
+                batch = new ArrayList<>(NDJSON_COMMIT_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            created += itemService.saveAll(batch).size();
+        }
+
+        logger.info("NDJSON batch create done: {} created, {} rejected", created, rejectedCount);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("created", created);
+        response.put("rejected", rejectedCount);
+        response.put("rejectedLines", rejected);
+        return ResponseEntity.ok(response);
+    }
+
+    // Bean Validation for items that don't come through @Valid (batch elements). Same message format as single items.
+    // A null element ([null], or an NDJSON line "null") is just another invalid item - the validator would throw on it.
+    private Map<String, String> validate(Item item) {
+        if (item == null) {
+            return Map.of("item", "Item must not be null");
+        }
+        Map<String, String> errors = new TreeMap<>();
+        for (ConstraintViolation<Item> violation : validator.validate(item)) {
+            errors.putIfAbsent(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        return errors;
+    }
+
     // GET /api/items/{id} - get one item.
+    // Comes with an ETag (the item's version). If the client sends it back in If-None-Match and the item
+    // hasn't changed, Spring answers 304 Not Modified for us, without writing the body.
     @GetMapping("/{id}")
     public ResponseEntity<Item> getItemById(@PathVariable Long id) {
-        logger.info("Received request to get item by id: {}", id);
+        logger.debug("Received request to get item by id: {}", id);
         return itemService.findById(id)
                 .map(item -> {
-                    logger.info("Item found with id: {}", id);
-                    return ResponseEntity.ok(item); // Found it, 200 OK.
+                    logger.debug("Item found with id: {}", id);
+                    return withETag(ResponseEntity.ok(), item).body(item); // Found it, 200 OK (or 304).
                 })
                 .orElseGet(() -> {
-                    logger.warn("Item not found with id: {}", id);
+                    logger.debug("Item not found with id: {}", id);
                     return ResponseEntity.notFound().build(); // Didn't find it, 404 Not Found.
                 });
     }
 
     // PUT /api/items/{id} - update an existing item.
+    // Include the "version" from the last GET to make it conditional: if the item changed since, it's a 409.
+    // Or the HTTP way: send the ETag back in If-Match, and a changed item is a 412 Precondition Failed.
+    // Unconditional updates come back without an ETag, finding out the new version would take another query.
     @PutMapping("/{id}")
     public ResponseEntity<?> updateItem(@PathVariable Long id,
                                         @Valid @RequestBody Item itemDetails, // New details for the item.
-                                        BindingResult result) {
-        logger.info("Received request to update item with id: {}", id);
+                                        BindingResult result,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        logger.debug("Received request to update item with id: {}", id);
         if (result.hasErrors()) {
             return handleValidationErrors(result); // Validation failed, 400.
         }
+        if (ifMatch != null && !"*".equals(ifMatch.trim())) {
+            itemDetails.setVersion(versionFromETag(ifMatch)); // The header wins over whatever the body says.
+        }
 
-        return itemService.findById(id) // First, see if the item even exists.
-                .map(existingItem -> {
-                    // It exists. Now, update its fields with the new details.
-                    // Important: update the fields of the *existing* item, don't just swap it out
-                    // or let the client change the ID.
-                    existingItem.setName(itemDetails.getName());
-                    existingItem.setDescription(itemDetails.getDescription());
-                    existingItem.setStatus(itemDetails.getStatus());
-                    existingItem.setEmail(itemDetails.getEmail());
-                    // ID is from path, not payload.
-
-                    Item updatedItem = itemService.save(existingItem); // Save the changes.
-                    logger.info("Item updated successfully with id: {}", id);
-                    return ResponseEntity.ok(updatedItem); // All good, 200 OK with the updated item.
+        // One UPDATE statement does it all. ID is from path, not payload.
+        Optional<Item> updated;
+        try {
+            updated = itemService.update(id, itemDetails);
+        } catch (OptimisticLockingFailureException e) {
+            if (ifMatch != null) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Item has changed, If-Match does not match");
+            }
+            throw e; // Version from the body: 409, see handleOptimisticLockingFailure.
+        }
+        return updated
+                .map(updatedItem -> {
+                    logger.debug("Item updated successfully with id: {}", id);
+                    return withETag(ResponseEntity.ok(), updatedItem).body(updatedItem); // All good, 200 OK with the updated item.
                 })
                 .orElseGet(() -> {
-                    logger.warn("Item not found with id: {} for update.", id);
-                    return ResponseEntity.notFound().build(); // Item wasn't there to update, 404.
+                    logger.debug("Item not found with id: {} for update.", id);
+                    if (ifMatch != null) {
+                        // Nothing there for If-Match (even "*") to match: RFC 9110 says 412, not 404.
+                        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Item does not exist, If-Match does not match");
+                    }
+                    return ResponseEntity.notFound().build(); // No row was updated, so it wasn't there: 404.
                 });
     }
 
+    // Strong ETag for one item: its version, which goes up on every change. No version, no ETag.
+    private static ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder response, Item item) {
+        return item.getVersion() == null ? response : response.eTag("\"" + item.getVersion() + "\"");
+    }
+
+    // ETag for a list/page: a 64-bit digest over every (id, version) pair. Any update, insert or delete
+    // in the list changes it, and computing it is way cheaper than serializing the items.
+    // Each value goes through the SplitMix64 finalizer before it's folded in. A plain 31 * h + x hash is linear,
+    // so different pages collide easily ((id 1, version 31) and (id 2, version 0) did), and a strong ETag that
+    // collides means a 304 for a page that actually changed.
+    private static String etagOf(List<Item> items) {
+        long hash = 1125899906842597L;
+        for (Item item : items) {
+            hash = mix(hash ^ (item.getId() == null ? 0 : item.getId()));
+            hash = mix(hash ^ (item.getVersion() == null ? -1 : item.getVersion()));
+        }
+        return "\"" + items.size() + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    // SplitMix64 finalizer: every input bit flips about half the output bits.
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // "5" -> 5. Anything that isn't one of our ETags can't match the current item, so that's a 412 too.
+    private static long versionFromETag(String etag) {
+        String value = etag.trim();
+        if (value.length() < 3 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match must be a single strong ETag");
+        }
+        try {
+            return Long.parseLong(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match does not match");
+        }
+    }
+
     // DELETE /api/items/{id} - remove one item.
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteItem(@PathVariable Long id) {
-        logger.info("Received request to delete item with id: {}", id);
+        logger.debug("Received request to delete item with id: {}", id);
         if (itemService.deleteById(id)) { // deleteById now tells us if it worked.
-            logger.info("Item deleted successfully with id: {}", id);
+            logger.debug("Item deleted successfully with id: {}", id);
             return ResponseEntity.noContent().build(); // Deleted, 204 No Content.
         } else {
-            logger.warn("Item not found with id: {} for deletion.", id);
+            logger.debug("Item not found with id: {} for deletion.", id);
             return ResponseEntity.notFound().build(); // Wasn't there to delete, 404.
         }
     }
@@ -125,33 +483,90 @@ public class ItemController {
     /**
      * GET /api/items/process - Kicks off the big async job in ItemService.
      * This endpoint returns 202 Accepted RIGHT AWAY. The actual processing
-     * happens in the background.
+     * happens in the background. The response carries the job id (and a Location header)
+     * so the client can poll /api/items/process/{jobId} instead of reloading all items.
+     * If the job pool is full (too many jobs already running or queued) it's a 503, try again later.
      */
     @GetMapping("/process")
     public ResponseEntity<Map<String, String>> processItems() {
         logger.info("Received request to process all items asynchronously.");
-        CompletableFuture<List<Item>> processingFuture = itemService.processItemsAsync(); // Tell the service to start.
+        ItemProcessingJob job = itemService.createProcessingJob();
+        CompletableFuture<ItemProcessingJob> processingFuture;
+        try {
+            processingFuture = itemService.processItemsAsync(job); // Tell the service to start.
+        } catch (TaskRejectedException e) {
+            itemService.abandonProcessingJob(job, e);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many processing jobs running, try again later");
+        }
 
         // This part is just for logging on the server when the async job is done.
         // It doesn't block the HTTP response.
-        processingFuture.whenComplete((items, ex) -> {
+        processingFuture.whenComplete((finishedJob, ex) -> {
             if (ex != null) {
                 logger.error("Asynchronous item processing failed globally.", ex);
             } else {
-                logger.info("Asynchronous item processing completed. {} items processed successfully.", items.size());
+                logger.info("Asynchronous item processing completed. {} items processed successfully, {} failed.",
+                        finishedJob.getProcessed(), finishedJob.getFailed());
             }
         });
 
         // Return 202 Accepted: means "Okay, I got your request, I'm working on it."
-        return ResponseEntity.accepted().body(Map.of("message", "Item processing initiated asynchronously."));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/items/process/" + job.getId()))
+                .body(Map.of("message", "Item processing initiated asynchronously.",
+                        "jobId", job.getId().toString()));
+    }
+
+    // GET /api/items/process/{jobId} - progress of a processing job: counts, rate, ETA.
+    @GetMapping("/process/{jobId}")
+    public ResponseEntity<ItemProcessingJob> getProcessingJob(@PathVariable UUID jobId) {
+        return itemService.findProcessingJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build()); // Unknown (or long forgotten) job, 404.
+    }
+
+    /**
+     * GET /api/items/process/{jobId}/results - outcome of a finished job: counts and the ids that failed.
+     * 409 while the job is still running, the results aren't there yet.
+     */
+    @GetMapping("/process/{jobId}/results")
+    public ResponseEntity<ItemProcessingSummary> getProcessingJobResults(@PathVariable UUID jobId) {
+        ItemProcessingJob job = itemService.findProcessingJob(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No processing job with id " + jobId));
+        if (job.getStatus() == ItemProcessingJob.Status.RUNNING) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Processing job " + jobId + " is still running");
+        }
+        return ResponseEntity.ok(job.toSummary());
     }
 
 
+    // Somebody else updated the item since the client read it: 409 Conflict, re-read and try again.
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        logger.debug("Update conflict: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "Item was modified concurrently, reload it and try again."));
+    }
+
+    // The stream pool (WebAsyncConfig) is full: too many clients streaming at once, come back later.
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<Map<String, String>> handleTaskRejected(TaskRejectedException ex) {
+        logger.warn("Async request rejected: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", "Too many streaming requests running, try again later"));
+    }
+
     // Basic error handler for things like ResponseStatusException thrown in the controller.
     // For a real app, a @ControllerAdvice is better for global exception handling.
+    // 4xx is the client's mistake (bad limit, unknown field, stale If-Match...), not worth more than DEBUG.
+    // RequestLoggingFilter still logs the request itself if it's a 5xx or slow.
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<Map<String, String>> handleResponseStatusException(ResponseStatusException ex) {
-        logger.error("Controller error: {} - {}", ex.getStatusCode(), ex.getReason());
+        if (ex.getStatusCode().is5xxServerError()) {
+            logger.warn("Controller error: {} - {}", ex.getStatusCode(), ex.getReason());
+        } else {
+            logger.debug("Controller error: {} - {}", ex.getStatusCode(), ex.getReason());
+        }
         return ResponseEntity.status(ex.getStatusCode()).body(Map.of("error", ex.getReason()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.siemens.internship.logging;
+
+import com.siemens.internship.config.RequestLoggingProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * One structured line per request, but only for the requests worth reading:
+ *  - server errors (5xx or an exception escaping the controller) are ALWAYS logged, at ERROR,
+ *  - slow requests (over slow-request-threshold-ms) are ALWAYS logged, at WARN,
+ *  - everything else is sampled, per endpoint, at INFO.
+ * Replaces the unconditional INFO lines the controller/service used to write for every single call,
+ * which at high request rates cost more CPU than the requests themselves.
+ * The appender behind it is async (see logback-spring.xml), so logging never blocks a request thread.
+ */
+@Component
+public class RequestLoggingFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestLoggingFilter.class);
+
+    private final RequestLoggingProperties properties;
+
+    public RequestLoggingFilter(RequestLoggingProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long startedAt = System.nanoTime();
+        Throwable failure = null;
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            log(request, response, (System.nanoTime() - startedAt) / 1_000_000, failure);
+        }
+    }
+
+    private void log(HttpServletRequest request, HttpServletResponse response, long durationMs, Throwable failure) {
+        String endpoint = endpointOf(request);
+        int status = failure != null ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+
+        if (failure != null || status >= 500) {
+            logger.error("request endpoint=\"{}\" uri={} status={} durationMs={} error=\"{}\"",
+                    endpoint, request.getRequestURI(), status, durationMs, failure == null ? "" : failure.toString());
+        } else if (durationMs >= properties.getSlowRequestThresholdMs()) {
+            logger.warn("request endpoint=\"{}\" uri={} status={} durationMs={} slow=true",
+                    endpoint, request.getRequestURI(), status, durationMs);
+        } else if (logger.isInfoEnabled() && sampled(endpoint)) {
+            logger.info("request endpoint=\"{}\" uri={} status={} durationMs={}",
+                    endpoint, request.getRequestURI(), status, durationMs);
+        }
+    }
+
+    private boolean sampled(String endpoint) {
+        double rate = properties.getSampleRates().getOrDefault(endpoint, properties.getDefaultSampleRate());
+        return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    // "GET /api/items/{id}" rather than the raw URI, so all ids share one sample rate.
+    private static String endpointOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+
+    // Async dispatches (StreamingResponseBody) already got their line from the initial dispatch.
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return true;
+    }
+}
@@ -0,0 +1,73 @@
+package com.siemens.internship.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Times every public ItemController endpoint and ItemService method, so we're not relying on log lines anymore.
+ * Per method (tags: class, method):
+ *  - items.calls       timer with a percentile histogram, tagged outcome=success|error
+ *  - items.errors      counter, tagged with the exception's class name
+ *  - items.in.flight   gauge of calls currently running
+ * Methods returning a CompletableFuture (the processing job) are timed until the future completes,
+ * not just until it's handed back. Everything is scrapeable at /actuator/prometheus.
+ */
+@Aspect
+@Component
+public class ItemMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>(); // Also keeps the gauges' values alive.
+
+    public ItemMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * com.siemens.internship.controller.ItemController.*(..))"
+            + " || execution(public * com.siemens.internship.service.ItemService.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        String className = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        AtomicInteger active = inFlight.computeIfAbsent(className + "." + method, key ->
+                meterRegistry.gauge("items.in.flight", Tags.of("class", className, "method", method), new AtomicInteger()));
+
+        active.incrementAndGet();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            record(sample, active, className, method, e);
+            throw e;
+        }
+
+        if (result instanceof CompletableFuture<?> future) {
+            future.whenComplete((value, error) -> record(sample, active, className, method, error));
+        } else {
+            record(sample, active, className, method, null);
+        }
+        return result;
+    }
+
+    private void record(Timer.Sample sample, AtomicInteger active, String className, String method, Throwable error) {
+        active.decrementAndGet();
+        sample.stop(Timer.builder("items.calls")
+                .tags("class", className, "method", method, "outcome", error == null ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        if (error != null) {
+            meterRegistry.counter("items.errors",
+                    "class", className, "method", method, "exception", error.getClass().getSimpleName()).increment();
+        }
+    }
+}
@@ -1,26 +1,38 @@
 package com.siemens.internship.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.Instant;
+import java.util.UUID;
+
 @Entity
+// (status, id) so "items in status X, next page after id Y" is a pure index range scan.
+@Table(indexes = @Index(name = "idx_item_status_id", columnList = "status, id"))
 @Getter
 @Setter
-@AllArgsConstructor
 @NoArgsConstructor
 public class Item {
+    // Sequence with a pooled optimizer instead of IDENTITY: Hibernate grabs 50 ids per sequence call
+    // and knows them before the INSERT, so inserts can go out as JDBC batches (IDENTITY disables that).
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // Using IDENTITY, seems more straightforward for simple auto-increment PKs.
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_seq")
+    @SequenceGenerator(name = "item_seq", sequenceName = "item_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Item name cannot be blank.") // Can't have a blank name, obviously.
@@ -30,17 +42,43 @@ public class Item {
     @Size(max = 500, message = "Description can be at most 500 characters.")
     private String description; // Description's optional, but can't be crazy long.
 
-    private String status; // Maybe make this an Enum later if the statuses are fixed.
+    private ItemStatus status; // Stored as a small int code, see ItemStatusConverter.
 
     @NotBlank(message = "Email cannot be blank.")
     @Email(message = "Please provide a valid email address.") // Email needs to look like an email.
     private String email;
 
+    // Optimistic locking: bumped on every update. Send it back with a PUT and the update only goes
+    // through if nobody changed the item in between, otherwise it's a 409.
+    @Version
+    private Long version;
+
+    // Lease taken by a processing job (on whichever node) while it works on this item, see ItemRepository.claimIds.
+    // Internal bookkeeping only, never part of the API.
+    @JsonIgnore
+    private UUID claimToken;
+
+    @JsonIgnore
+    private Instant claimExpiresAt;
+
+    public Item(Long id, String name, String description, ItemStatus status, String email) {
+        this(name, description, status, email);
+        this.id = id;
+    }
+
     // Handy constructor for when we're making a new item and don't have an ID yet.
-    public Item(String name, String description, String status, String email) {
+    public Item(String name, String description, ItemStatus status, String email) {
         this.name = name;
         this.description = description;
         this.status = status;
         this.email = email;
     }
+
+    // New items without a status start out as NEW, so the processing job picks them up.
+    @PrePersist
+    void defaultStatus() {
+        if (status == null) {
+            status = ItemStatus.NEW;
+        }
+    }
 }
\ No newline at end of file
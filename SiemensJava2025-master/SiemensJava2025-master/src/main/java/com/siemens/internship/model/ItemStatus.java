@@ -0,0 +1,31 @@
+package com.siemens.internship.model;
+
+import java.util.Arrays;
+
+/**
+ * Where an item is in its lifecycle. Used to be a free-form String.
+ * Stored as a SMALLINT code (see ItemStatusConverter), NOT the ordinal, so reordering
+ * or adding constants never changes what's already in the database.
+ */
+public enum ItemStatus {
+    NEW(0),
+    PENDING(1),
+    PROCESSED(2);
+
+    private final short code;
+
+    ItemStatus(int code) {
+        this.code = (short) code;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public static ItemStatus fromCode(short code) {
+        return Arrays.stream(values())
+                .filter(status -> status.code == code)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown item status code: " + code));
+    }
+}
@@ -0,0 +1,21 @@
+package com.siemens.internship.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * ItemStatus <-> SMALLINT column. autoApply, so every ItemStatus attribute (and query parameter) uses it.
+ */
+@Converter(autoApply = true)
+public class ItemStatusConverter implements AttributeConverter<ItemStatus, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(ItemStatus status) {
+        return status == null ? null : status.getCode();
+    }
+
+    @Override
+    public ItemStatus convertToEntityAttribute(Short code) {
+        return code == null ? null : ItemStatus.fromCode(code);
+    }
+}
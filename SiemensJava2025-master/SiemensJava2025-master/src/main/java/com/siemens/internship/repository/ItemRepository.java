@@ -1,20 +1,134 @@
 package com.siemens.internship.repository;
 
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
 @Repository // Marking this as a Repo, good habit. Spring Data JPA usually figures it out anyway.
-public interface ItemRepository extends JpaRepository<Item, Long> {
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemRepositoryCustom {
+
+    // Rows per JDBC round trip for the keyset queries below. Matches the biggest page/chunk we ask for,
+    // so a page comes back in one fetch instead of the driver's default (often 10-100 rows).
+    String KEYSET_FETCH_SIZE = "1000";
+
+    /**
+     * Keyset ("seek") page: the next items with an id strictly greater than afterId, in id order.
+     * Walks the primary key index, so page N costs the same as page 1 (no OFFSET scanning).
+     * Only the page size of the Pageable is used, keep it at page 0.
+     */
+    @Query("SELECT i FROM Item i WHERE i.id > :afterId ORDER BY i.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = KEYSET_FETCH_SIZE))
+    List<Item> findChunkAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Keyset page restricted to one status. Served by the (status, id) index,
+     * so it only reads the matching rows instead of scanning the table.
+     */
+    @Query("SELECT i FROM Item i WHERE i.status = :status AND i.id > :afterId ORDER BY i.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = KEYSET_FETCH_SIZE))
+    List<Item> findChunkByStatusAfter(@Param("status") ItemStatus status, @Param("afterId") long afterId, Pageable pageable);
+
+    // How many items are in a given status, index-only count.
+    long countByStatus(ItemStatus status);
+
+    /**
+     * Same keyset walk as findChunkAfter, but ids only and straight off the primary key index.
+     * Used to (re)build the id filter without loading the table into memory.
+     */
+    @Query("SELECT i.id FROM Item i WHERE i.id > :afterId ORDER BY i.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = KEYSET_FETCH_SIZE))
+    List<Long> findIdsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Same keyset walk as findChunkByStatusAfter, but ids only. What the processing job reads,
+     * it doesn't need the rest of the row to flip a status. Only touches the (status, id) index.
+     * This is the job's id source: one chunk at a time, so it starts on the first chunk right away and
+     * never holds more than the in-flight chunks' ids, however big the table. Unlike a server-side cursor
+     * it doesn't keep a connection (and transaction) open between chunks either.
+     */
+    @Query("SELECT i.id FROM Item i WHERE i.status = :status AND i.id > :afterId ORDER BY i.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = KEYSET_FETCH_SIZE))
+    List<Long> findIdsByStatusAfter(@Param("status") ItemStatus status, @Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Overwrites the editable fields of one item in a single UPDATE, no SELECT first, and bumps its version.
+     * With an expected version it's a compare-and-set: the row is only touched if it's still at that version.
+     * Without one (null) it's a plain last-write-wins update.
+     * It also drops any processing claim on the item: the job claimed the old state, so its status flip
+     * (updateStatusByIds only touches rows still carrying its token) now misses this row instead of
+     * overwriting what was just written. The job counts it as a conflict.
+     * @return 1 if the item was updated, 0 if it's not there or is at another version.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Item i SET i.name = :name, i.description = :description, i.status = :status, i.email = :email, " +
+            "i.version = i.version + 1, i.claimToken = NULL, i.claimExpiresAt = NULL " +
+            "WHERE i.id = :id AND (:version IS NULL OR i.version = :version)")
+    int updateItem(@Param("id") Long id,
+                   @Param("version") Long expectedVersion,
+                   @Param("name") String name,
+                   @Param("description") String description,
+                   @Param("status") ItemStatus status,
+                   @Param("email") String email);
+
+    /**
+     * Deletes one item with a plain DELETE ... WHERE id = ?.
+     * Unlike the inherited deleteById, nothing gets loaded into the persistence context first.
+     * @return 1 if it was deleted, 0 if there was nothing to delete.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Item i WHERE i.id = :id")
+    int deleteItemById(@Param("id") Long id);
+
+    /**
+     * Claims a chunk for one processing job: stamps our token and a lease expiry on the items that are
+     * still in the given status and not leased by someone else (or whose lease ran out).
+     * It's a single conditional UPDATE, so when two nodes race for the same rows the database lets
+     * exactly one of them win each row - no double processing, no SELECT ... FOR UPDATE needed.
+     * @return How many of the ids we now hold.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Item i SET i.claimToken = :token, i.claimExpiresAt = :expiresAt " +
+            "WHERE i.id IN :ids AND i.status = :status AND (i.claimToken IS NULL OR i.claimExpiresAt < :now)")
+    int claimIds(@Param("ids") Collection<Long> ids,
+                 @Param("status") ItemStatus status,
+                 @Param("token") UUID token,
+                 @Param("expiresAt") Instant expiresAt,
+                 @Param("now") Instant now);
+
+    /**
+     * Which of these ids we actually hold. Only needed when claimIds got part of a chunk.
+     */
+    @Query("SELECT i.id FROM Item i WHERE i.id IN :ids AND i.claimToken = :token ORDER BY i.id")
+    List<Long> findClaimedIds(@Param("ids") Collection<Long> ids, @Param("token") UUID token);
 
     /**
-     * Just need the IDs sometimes, faster than grabbing whole Item objects.
-     * Useful for the async processing later.
-     * @return A list of all item IDs.
+     * Sets the status of a whole bunch of items in a single UPDATE statement, and releases the claim.
+     * Only rows still claimed with our token are touched, so if our lease ran out and another node
+     * took over, or the item was updated since we claimed it (updateItem drops the claim), we leave it alone.
+     * The version goes up too, so a PUT based on the old state gets a 409 instead of silently undoing the status change.
+     * Runs (and commits) in its own transaction unless the caller already has one.
+     * @return How many rows were actually updated (ids that vanished or were taken over don't count).
      */
-    @Query("SELECT i.id FROM Item i") // 'i' is just a common alias for Item in JPQL.
-    List<Long> findAllItemIds();
-}
\ No newline at end of file
+    @Modifying
+    @Transactional
+    @Query("UPDATE Item i SET i.status = :status, i.claimToken = NULL, i.claimExpiresAt = NULL, i.version = i.version + 1 " +
+            "WHERE i.id IN :ids AND i.claimToken = :token")
+    int updateStatusByIds(@Param("ids") Collection<Long> ids, @Param("status") ItemStatus status, @Param("token") UUID token);
+}
@@ -0,0 +1,29 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.ItemStatus;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Queries Spring Data can't derive for us, implemented by hand in ItemRepositoryImpl
+ * and mixed into ItemRepository.
+ */
+public interface ItemRepositoryCustom {
+
+    /**
+     * Item attributes that can be asked for in a projection. Anything else is rejected,
+     * so a request parameter never turns into arbitrary JPQL.
+     */
+    Set<String> PROJECTABLE_FIELDS = Set.of("id", "name", "description", "status", "email", "version");
+
+    /**
+     * Keyset page (like findChunkAfter) that only SELECTs the given columns.
+     * Each row comes back as a field -> value map, in the order the fields were given.
+     * @param fields Which attributes to select, all from PROJECTABLE_FIELDS.
+     * @param status Only items in this status, or null for all.
+     */
+    List<Map<String, Object>> findFieldsAfter(Collection<String> fields, ItemStatus status, long afterId, int limit);
+}
@@ -0,0 +1,62 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written part of ItemRepository (Spring Data finds it by the "Impl" suffix).
+ */
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Criteria tuple query, because the column list is only known at runtime.
+     * Nothing gets loaded as an entity, so no dirty checking or persistence context overhead either.
+     */
+    @Override
+    public List<Map<String, Object>> findFieldsAfter(Collection<String> fields, ItemStatus status, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Item> item = query.from(Item.class);
+
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            if (!PROJECTABLE_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Unknown item field: " + field);
+            }
+            selections.add(item.get(field).alias(field));
+        }
+
+        Predicate afterCursor = cb.greaterThan(item.<Long>get("id"), afterId);
+        query.multiselect(selections)
+                .where(status == null ? afterCursor : cb.and(cb.equal(item.get("status"), status), afterCursor))
+                .orderBy(cb.asc(item.get("id")));
+
+        List<Tuple> rows = entityManager.createQuery(query).setMaxResults(limit).getResultList();
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (String field : fields) {
+                values.put(field, row.get(field));
+            }
+            result.add(values);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,255 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.config.ItemLookupProperties;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.repository.ItemRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DataLoader-style micro-batching for single-item reads.
+ * Under burst traffic lots of requests miss the cache for different ids at nearly the same moment,
+ * and each used to take its own connection for its own SELECT. Here the lookups are collected for
+ * item.lookup.batch-window (or until item.lookup.max-batch-size ids are waiting) and resolved with
+ * ONE findAllById (IN query). Every caller still just gets its own Optional back.
+ *
+ * On top of that it's single-flight: while an id is being loaded (waiting in a batch or already
+ * querying), further callers for that same id don't queue another load, they wait for the one in flight.
+ * So a popular item missing the cache costs one SELECT, not one per client (no thundering herd).
+ * This holds with batching turned off too.
+ *
+ * Writes cancel loads: a load may have read the row just before a PUT / DELETE / status flip committed.
+ * Every write path calls invalidate(id) after its commit, which takes the load out of the single-flight map
+ * (so the next reader starts a fresh one instead of riding along) and marks it, so its result is still
+ * handed to whoever waits for it but never ends up in the cache.
+ */
+@Component
+public class ItemBatchLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ItemBatchLoader.class);
+
+    private final ItemRepository itemRepository;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService timer; // Closes the windows, nothing else. Null when batching is off.
+    // Runs the queries of window-closed batches, so one slow query doesn't hold up the next windows.
+    private final ExecutorService dispatcher;
+
+    // Loads currently running, by id. Entries only live until their load completes, it's not a cache.
+    private final ConcurrentHashMap<Long, Load> inFlight = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+    private Map<Long, CompletableFuture<Optional<Item>>> pending = new HashMap<>(); // Guarded by lock.
+
+    public ItemBatchLoader(ItemRepository itemRepository, ItemLookupProperties properties) {
+        this.itemRepository = itemRepository;
+        this.windowNanos = properties.getBatchWindow().toNanos();
+        this.maxBatchSize = Math.max(1, properties.getMaxBatchSize());
+        if (windowNanos > 0) {
+            this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "item-batch-loader"));
+            int threads = Math.max(1, properties.getMaxConcurrentBatches());
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> daemon(runnable, "item-batch-query"));
+            pool.allowCoreThreadTimeOut(true); // No idle threads when there's no traffic.
+            this.dispatcher = pool;
+        } else {
+            this.timer = null;
+            this.dispatcher = null;
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    // One load of one id: its result, and whether a write has made that result stale since it started.
+    private static final class Load {
+        final CompletableFuture<Optional<Item>> result = new CompletableFuture<>();
+        volatile boolean invalidated;
+    }
+
+    /**
+     * Same contract as ItemRepository.findById, but may share the query with concurrent callers.
+     * Blocks for at most the batch window plus the query.
+     * A found item is put in the cache, unless a write invalidated it while the load was running.
+     */
+    public Optional<Item> load(Long id, Cache cache) {
+        Load mine = new Load();
+        Load shared = inFlight.putIfAbsent(id, mine);
+        if (shared != null) {
+            return cacheIfCurrent(id, await(shared.result), shared, cache); // Somebody's already loading this id, ride along.
+        }
+        try {
+            Optional<Item> item = timer == null ? itemRepository.findById(id) : await(enqueue(id));
+            mine.result.complete(item);
+            return cacheIfCurrent(id, item, mine, cache);
+        } catch (RuntimeException e) {
+            mine.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine); // Done, the next miss for this id starts a fresh load.
+        }
+    }
+
+    /**
+     * Several ids in one findAllById (callers keep the list to a sane IN size), for the ids nobody else
+     * is loading right now. Ids already in flight wait for that load instead. Same caching rule as load().
+     * @return The items that exist, by id.
+     */
+    public Map<Long, Item> loadAll(Collection<Long> ids, Cache cache) {
+        Map<Long, Load> mine = new LinkedHashMap<>();
+        Map<Long, Load> shared = new HashMap<>();
+        for (Long id : ids) {
+            Load load = new Load();
+            Load existing = inFlight.putIfAbsent(id, load);
+            if (existing == null) {
+                mine.put(id, load);
+            } else {
+                shared.put(id, existing);
+            }
+        }
+        try {
+            if (!mine.isEmpty()) {
+                Map<Long, Item> found = new HashMap<>(mine.size() * 2);
+                for (Item item : itemRepository.findAllById(new ArrayList<>(mine.keySet()))) {
+                    found.put(item.getId(), item);
+                }
+                mine.forEach((id, load) -> load.result.complete(Optional.ofNullable(found.get(id))));
+            }
+        } catch (RuntimeException e) {
+            mine.values().forEach(load -> load.result.completeExceptionally(e));
+            throw e;
+        } finally {
+            mine.forEach(inFlight::remove);
+        }
+
+        Map<Long, Item> items = new HashMap<>((mine.size() + shared.size()) * 2);
+        mine.forEach((id, load) -> cacheIfCurrent(id, load.result.join(), load, cache).ifPresent(item -> items.put(id, item)));
+        shared.forEach((id, load) -> cacheIfCurrent(id, await(load.result), load, cache).ifPresent(item -> items.put(id, item)));
+        return items;
+    }
+
+    /**
+     * A write to this id just committed: loads already running may have read the old row.
+     * They're dropped from the single-flight map, so readers from now on get a fresh load, and marked,
+     * so their (possibly stale) result isn't cached. Call it after the commit, before touching the cache.
+     */
+    public void invalidate(Long id) {
+        Load load = inFlight.remove(id);
+        if (load != null) {
+            load.invalidated = true;
+        }
+    }
+
+    // Put first, check second: a write marks the load before it writes/evicts the cache entry itself,
+    // so either we see the mark and take our copy back out, or the write's own cache update lands after ours.
+    private static Optional<Item> cacheIfCurrent(Long id, Optional<Item> item, Load load, Cache cache) {
+        if (item.isPresent() && !load.invalidated) {
+            cache.put(id, item.get());
+            if (load.invalidated) {
+                cache.evict(id);
+            }
+        }
+        return item;
+    }
+
+    private static Optional<Item> await(CompletableFuture<Optional<Item>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // Whoever ran the query hit a DB error, hand it to each caller as if they'd run it themselves.
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<Optional<Item>> enqueue(Long id) {
+        CompletableFuture<Optional<Item>> future;
+        Map<Long, CompletableFuture<Optional<Item>>> fullBatch = null;
+        synchronized (lock) {
+            future = pending.get(id);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                pending.put(id, future);
+                if (pending.size() >= maxBatchSize) {
+                    fullBatch = pending; // Full, no point waiting for the timer.
+                    pending = new HashMap<>();
+                } else if (pending.size() == 1) {
+                    try {
+                        timer.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS); // First one in opens the window.
+                    } catch (RejectedExecutionException e) {
+                        fullBatch = pending; // Shutting down, nobody would close this window. Send it right away.
+                        pending = new HashMap<>();
+                    }
+                }
+            }
+        }
+        if (fullBatch != null) {
+            dispatch(fullBatch); // On the caller's thread, it has to wait for the answer anyway.
+        }
+        return future;
+    }
+
+    // Window's over: close it and hand whatever has piled up to the dispatcher, so the timer is free for the next window.
+    // (May find a newer, partial batch if the old one filled up early - fine.)
+    private void flush() {
+        Map<Long, CompletableFuture<Optional<Item>>> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        }
+        try {
+            dispatcher.execute(() -> dispatch(batch));
+        } catch (RejectedExecutionException e) {
+            dispatch(batch); // Shutting down, still answer the callers that are waiting.
+        }
+    }
+
+    private void dispatch(Map<Long, CompletableFuture<Optional<Item>>> batch) {
+        try {
+            Map<Long, Item> found = new HashMap<>(batch.size() * 2);
+            for (Item item : itemRepository.findAllById(batch.keySet())) {
+                found.put(item.getId(), item);
+            }
+            logger.debug("Resolved {} item lookups with one query, {} found.", batch.size(), found.size());
+            batch.forEach((id, future) -> future.complete(Optional.ofNullable(found.get(id))));
+        } catch (RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (timer != null) {
+            timer.shutdown(); // Windows already open still close (and get answered), see flush().
+            dispatcher.shutdown();
+        }
+    }
+}
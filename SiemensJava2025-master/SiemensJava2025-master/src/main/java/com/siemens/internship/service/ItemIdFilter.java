@@ -0,0 +1,106 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.config.ItemLookupProperties;
+import com.siemens.internship.repository.ItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * In-memory Bloom filter of the item ids that exist, so lookups of ids that definitely don't
+ * (scrapers, stale clients) get their 404 without a query. See ItemService.findById / deleteById.
+ *
+ * - Built from the table at startup, and rebuilt every item.lookup.id-filter.rebuild-interval.
+ * - New ids are added right after their insert commits.
+ * - Deleted ids can't be taken out of a Bloom filter, they stay "maybe there" (= one normal query)
+ *   until the next rebuild drops them.
+ * - Until the first build finishes, or when it's disabled, everything is "maybe there".
+ *
+ * Only inserts made through THIS instance are seen between rebuilds, so only enable it where that's
+ * all of them (single instance). With several nodes writing, an item created elsewhere would 404 here
+ * until the next rebuild.
+ */
+@Component
+public class ItemIdFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ItemIdFilter.class);
+    private static final int REBUILD_PAGE_SIZE = 1000;
+    private static final long MIN_CAPACITY = 1024;
+
+    private final ItemRepository itemRepository;
+    private final ItemLookupProperties.IdFilter properties;
+
+    // Null = not built (yet), so no answers. Read "building" before "current" in add(), see rebuild().
+    private volatile LongBloomFilter current;
+    private volatile LongBloomFilter building;
+
+    public ItemIdFilter(ItemRepository itemRepository, ItemLookupProperties lookupProperties) {
+        this.itemRepository = itemRepository;
+        this.properties = lookupProperties.getIdFilter();
+    }
+
+    /**
+     * False only if the item definitely doesn't exist. True means "maybe", go ask the database.
+     */
+    public boolean mightContain(long id) {
+        LongBloomFilter filter = current;
+        return filter == null || filter.mightContain(id);
+    }
+
+    /**
+     * Remembers a new id. Call it after the insert has committed, otherwise a rebuild running
+     * at the same time could miss the row and drop the id.
+     */
+    public void add(long id) {
+        LongBloomFilter next = building; // First: a rebuild in progress must not lose it...
+        if (next != null) {
+            next.put(id);
+        }
+        LongBloomFilter filter = current; // ...then the live one (already the new one if "building" was just cleared).
+        if (filter != null) {
+            filter.put(id);
+        }
+    }
+
+    /**
+     * (Re)builds the filter from the table, walking the primary key in keyset pages so the
+     * id set is never all on the heap. Lookups keep using the old filter until the new one is complete.
+     * Sized for twice the current row count, so it stays accurate while the table grows until the next rebuild.
+     */
+    @Scheduled(fixedDelayString = "${item.lookup.id-filter.rebuild-interval:PT5M}")
+    public void rebuild() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        long expected = Math.max(MIN_CAPACITY, itemRepository.count() * 2);
+        LongBloomFilter next = new LongBloomFilter(expected, properties.getFalsePositiveRate());
+        building = next; // From here on add() also writes into the new filter.
+        try {
+            long lastId = 0L;
+            long ids = 0;
+            List<Long> page;
+            do {
+                page = itemRepository.findIdsAfter(lastId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+                for (Long id : page) {
+                    next.put(id);
+                }
+                if (!page.isEmpty()) {
+                    lastId = page.get(page.size() - 1);
+                    ids += page.size();
+                }
+            } while (page.size() == REBUILD_PAGE_SIZE);
+            current = next; // Swap first, then stop double-writing (add() reads them the other way round).
+            logger.info("Item id filter rebuilt with {} ids (capacity {}) in {} ms.",
+                    ids, expected, (System.nanoTime() - startedAt) / 1_000_000);
+        } catch (RuntimeException e) {
+            logger.warn("Item id filter rebuild failed, keeping the previous one: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+}
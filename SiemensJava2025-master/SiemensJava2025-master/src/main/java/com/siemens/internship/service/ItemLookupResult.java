@@ -0,0 +1,12 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+
+import java.util.List;
+
+/**
+ * Answer to "give me these ids": the items we have, in the order they were asked for,
+ * plus the ids we don't have (instead of a 404 per id).
+ */
+public record ItemLookupResult(List<Item> items, List<Long> missingIds) {
+}
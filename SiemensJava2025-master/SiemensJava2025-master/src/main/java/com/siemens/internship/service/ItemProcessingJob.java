@@ -0,0 +1,141 @@
+package com.siemens.internship.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One run of the processing job, so clients can ask "how far along are we?"
+ * instead of reloading the whole table until everything says PROCESSED.
+ * Counters are updated by the chunk workers concurrently, hence the atomics/volatiles.
+ * Serialized as-is by GET /api/items/process/{jobId}.
+ */
+public class ItemProcessingJob {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final UUID id = UUID.randomUUID();
+    private final Instant startedAt = Instant.now();
+    private final long totalItems; // Row count when the job started, good enough for progress/ETA.
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong(); // Gone from the table by the time we got to them.
+    private final AtomicLong conflicts = new AtomicLong(); // Changed (PUT) or taken over by another node after we claimed them.
+    private final LongArrayBuilder failedIds = new LongArrayBuilder(); // Just the ids, no entities kept around.
+    private volatile Status status = Status.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    public ItemProcessingJob(long totalItems) {
+        this.totalItems = totalItems;
+    }
+
+    // Called by the chunk workers as they go.
+    void recordProcessed(long count) {
+        processed.addAndGet(count);
+    }
+
+    void recordSkipped(long count) {
+        skipped.addAndGet(count);
+    }
+
+    void recordConflict(long count) {
+        conflicts.addAndGet(count);
+    }
+
+    void recordFailure(long itemId) {
+        failedIds.add(itemId);
+    }
+
+    void complete() {
+        this.finishedAt = Instant.now();
+        this.status = Status.COMPLETED;
+    }
+
+    void fail(Throwable cause) {
+        this.error = cause.getMessage();
+        this.finishedAt = Instant.now();
+        this.status = Status.FAILED;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getTotalItems() {
+        return totalItems;
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    public long getConflicts() {
+        return conflicts.get();
+    }
+
+    public long getFailed() {
+        return failedIds.size();
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Items per second so far (processed, skipped, conflicts and failed are all work done).
+     */
+    public double getRate() {
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        double seconds = Math.max(Duration.between(startedAt, end).toMillis() / 1000.0, 0.001);
+        return getDone() / seconds;
+    }
+
+    /**
+     * Rough seconds left at the current rate. Null when we can't tell yet (nothing done so far)
+     * and 0 once the job has finished.
+     */
+    public Long getEtaSeconds() {
+        if (status != Status.RUNNING) {
+            return 0L;
+        }
+        double rate = getRate();
+        if (rate <= 0) {
+            return null;
+        }
+        long remaining = Math.max(totalItems - getDone(), 0);
+        return (long) Math.ceil(remaining / rate);
+    }
+
+    /**
+     * What GET /api/items/process/{jobId}/results hands out: the counts plus the ids that failed,
+     * so those can be looked at (or retried) without scanning the table.
+     */
+    public ItemProcessingSummary toSummary() {
+        return new ItemProcessingSummary(id, status, getProcessed(), getSkipped(), getConflicts(), getFailed(), failedIds.toArray());
+    }
+
+    private long getDone() {
+        return getProcessed() + getSkipped() + getConflicts() + getFailed();
+    }
+}
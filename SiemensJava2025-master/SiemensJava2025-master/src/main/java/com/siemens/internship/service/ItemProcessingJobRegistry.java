@@ -0,0 +1,46 @@
+package com.siemens.internship.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory registry of processing jobs, looked up by id from the controller.
+ * Finished jobs are kept around for a while so clients can still fetch their results,
+ * but only the newest MAX_FINISHED_JOBS of them, otherwise this would grow forever.
+ */
+@Component
+public class ItemProcessingJobRegistry {
+
+    static final int MAX_FINISHED_JOBS = 100;
+
+    private final Map<UUID, ItemProcessingJob> jobs = new ConcurrentHashMap<>();
+
+    public ItemProcessingJob create(long totalItems) {
+        ItemProcessingJob job = new ItemProcessingJob(totalItems);
+        jobs.put(job.getId(), job);
+        evictOldFinishedJobs();
+        return job;
+    }
+
+    public Optional<ItemProcessingJob> find(UUID id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    // Running jobs are never evicted, only the oldest finished ones beyond the limit.
+    private void evictOldFinishedJobs() {
+        long finished = jobs.values().stream().filter(job -> job.getFinishedAt() != null).count();
+        if (finished <= MAX_FINISHED_JOBS) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.getFinishedAt() != null)
+                .sorted(Comparator.comparing(ItemProcessingJob::getFinishedAt))
+                .limit(finished - MAX_FINISHED_JOBS)
+                .forEach(job -> jobs.remove(job.getId()));
+    }
+}
@@ -0,0 +1,16 @@
+package com.siemens.internship.service;
+
+import java.util.UUID;
+
+/**
+ * Outcome of a processing job. Deliberately no Item entities in here, just numbers and ids,
+ * so it stays small however many rows the job went through.
+ */
+public record ItemProcessingSummary(UUID jobId,
+                                    ItemProcessingJob.Status status,
+                                    long processed,
+                                    long skipped,
+                                    long conflicts,
+                                    long failed,
+                                    long[] failedIds) {
+}
@@ -1,163 +1,576 @@
 package com.siemens.internship.service;
 
+import com.siemens.internship.config.ItemProcessingProperties;
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
 import com.siemens.internship.repository.ItemRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.stream.Collectors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
 
 @Service
 public class ItemService {
 
     private static final Logger logger = LoggerFactory.getLogger(ItemService.class); // Gotta have logs.
 
+    public static final String ITEM_CACHE = "items"; // Cache name, also listed in spring.cache.cache-names.
+    private static final int STREAM_PAGE_SIZE = 500; // Rows per keyset query when streaming the whole table.
+    static final int LOOKUP_IN_LIST_SIZE = 500; // Max ids per IN (...), databases get unhappy with huge IN lists.
+    // What a processing run picks up. PROCESSED items are done and never read again.
+    static final List<ItemStatus> PENDING_STATUSES = List.of(ItemStatus.NEW, ItemStatus.PENDING);
+
     private final ItemRepository itemRepository;
-    private final Executor taskExecutor; // This is our custom thread pool for async jobs.
+    private final Executor workerExecutor; // Runs the processing job's chunks (the job itself runs on "taskExecutor").
+    private final ItemProcessingProperties processingProperties; // Chunk size etc. for the processing job.
+    private final ItemProcessingJobRegistry jobRegistry; // Keeps track of running/finished processing jobs.
+    private final Cache itemCache; // The item cache: read-through in findById, kept in step by every write below.
+    private final TransactionTemplate transactionTemplate; // Explicit transactions around the processing job's batches.
+    private final ItemBatchLoader batchLoader; // Coalesces concurrent findById misses into one query.
+    private final ItemIdFilter idFilter; // Bloom filter of existing ids, lets us skip queries for ids that can't exist.
 
     @Autowired
     public ItemService(ItemRepository itemRepository,
-                       @Qualifier("taskExecutor") Executor taskExecutor) { // DI for the repo and our task executor.
+                       @Qualifier("itemWorkerExecutor") Executor workerExecutor, // DI for the repo and the chunk workers.
+                       ItemProcessingProperties processingProperties,
+                       ItemProcessingJobRegistry jobRegistry,
+                       CacheManager cacheManager,
+                       PlatformTransactionManager transactionManager,
+                       ItemBatchLoader batchLoader,
+                       ItemIdFilter idFilter) {
         this.itemRepository = itemRepository;
-        this.taskExecutor = taskExecutor;
+        this.workerExecutor = workerExecutor;
+        this.processingProperties = processingProperties;
+        this.jobRegistry = jobRegistry;
+        this.itemCache = Objects.requireNonNull(cacheManager.getCache(ITEM_CACHE), "Cache '" + ITEM_CACHE + "' is not configured");
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchLoader = batchLoader;
+        this.idFilter = idFilter;
     }
 
     // Simple enough, get all items.
     public List<Item> findAll() {
-        logger.info("Fetching all items");
+        logger.debug("Fetching all items");
         return itemRepository.findAll();
     }
 
-    // Find one item. Might not exist, so an Optional is good here.
+    /**
+     * One keyset page: up to 'limit' items with id greater than afterId, in id order.
+     * Cost depends on the page size only, not on how deep into the table we are.
+     */
+    public List<Item> findPage(long afterId, int limit) {
+        logger.debug("Fetching page of {} items after id {}", limit, afterId);
+        return itemRepository.findChunkAfter(afterId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Same as findPage, but only items in the given status (e.g. "everything not processed yet").
+     */
+    public List<Item> findPageByStatus(ItemStatus status, long afterId, int limit) {
+        logger.debug("Fetching page of {} {} items after id {}", limit, status, afterId);
+        return itemRepository.findChunkByStatusAfter(status, afterId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Keyset page with only the given fields selected and returned, as field -> value maps.
+     * For list views that don't need the whole item (the description can be 500 chars a row).
+     * Fields must be from ItemRepositoryCustom.PROJECTABLE_FIELDS. Status is optional.
+     */
+    public List<Map<String, Object>> findFieldsPage(Collection<String> fields, ItemStatus status, long afterId, int limit) {
+        logger.debug("Fetching page of {} items after id {}, fields {}", limit, afterId, fields);
+        return itemRepository.findFieldsAfter(fields, status, afterId, limit);
+    }
+
+    /**
+     * All items as a lazy Stream, read page by page with the keyset query.
+     * Only one page is ever held in memory, and no connection/transaction stays open
+     * while the consumer is busy (e.g. writing to a slow HTTP client).
+     * Close it when you're done, like any Stream from a repository.
+     */
+    public Stream<Item> streamAll() {
+        logger.debug("Streaming all items in pages of {}", STREAM_PAGE_SIZE);
+        return Stream.iterate(
+                        findPage(0L, STREAM_PAGE_SIZE),
+                        page -> !page.isEmpty(),
+                        // A short page means we've read the last one, no need to ask again.
+                        page -> page.size() < STREAM_PAGE_SIZE
+                                ? List.of()
+                                : findPage(page.get(page.size() - 1).getId(), STREAM_PAGE_SIZE))
+                .flatMap(List::stream);
+    }
+
+    /**
+     * Resolves many ids at once. Whatever is already in the item cache is served from there,
+     * the rest is loaded with one IN query per LOOKUP_IN_LIST_SIZE ids (and cached for next time).
+     * The queries go through the batch loader, so a write landing meanwhile keeps its stale result out of the cache.
+     * Duplicate ids are looked up once. Items come back in the order they were asked for.
+     */
+    public ItemLookupResult findAllByIds(Collection<Long> ids) {
+        Set<Long> wanted = new LinkedHashSet<>(ids);
+        logger.debug("Looking up {} items by id", wanted.size());
+        Map<Long, Item> found = new HashMap<>(wanted.size() * 2);
+        List<Long> toLoad = new ArrayList<>();
+        for (Long id : wanted) {
+            Item cached = itemCache.get(id, Item.class);
+            if (cached != null) {
+                found.put(id, cached);
+            } else if (idFilter.mightContain(id)) { // Ids that definitely don't exist go straight to missingIds.
+                toLoad.add(id);
+            }
+        }
+        for (int from = 0; from < toLoad.size(); from += LOOKUP_IN_LIST_SIZE) {
+            List<Long> partition = toLoad.subList(from, Math.min(from + LOOKUP_IN_LIST_SIZE, toLoad.size()));
+            found.putAll(batchLoader.loadAll(partition, itemCache));
+        }
+
+        List<Item> items = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : wanted) {
+            Item item = found.get(id);
+            if (item != null) {
+                items.add(item);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new ItemLookupResult(items, missingIds);
+    }
+
+    /**
+     * Find one item. Might not exist, so an Optional is good here.
+     * Read-through cached (Caffeine, bounded by size and TTL - see spring.cache.caffeine.spec),
+     * so repeated reads of hot items don't go to the DB. Misses aren't cached, a new item
+     * must show up right away. Hit/miss/eviction counts are under /actuator/metrics/cache.*.
+     * Misses go through the batch loader, so concurrent misses for different ids share one IN query.
+     * Ids the id filter knows can't exist are answered right away, without a query at all.
+     * Read-through by hand rather than @Cacheable: the loader only caches what it loaded if no write
+     * invalidated the id meanwhile, otherwise a load that read the row just before a PUT/DELETE would
+     * put the old state back in the cache for the whole TTL.
+     */
     public Optional<Item> findById(Long id) {
-        logger.info("Fetching item with id: {}", id);
-        return itemRepository.findById(id);
+        logger.debug("Fetching item with id: {}", id);
+        Item cached = itemCache.get(id, Item.class);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (!idFilter.mightContain(id)) {
+            logger.debug("Item with id: {} is not in the id filter, skipping the lookup.", id);
+            return Optional.empty();
+        }
+        return batchLoader.load(id, itemCache);
     }
 
     // Saving an item. Could be new or an update. Making it transactional.
+    // Write-through: the saved version replaces whatever the cache had for that id.
     @Transactional
+    @CachePut(cacheNames = ITEM_CACHE, key = "#result.id")
     public Item save(Item item) {
-        logger.info("Saving item: {}", item.getName());
+        logger.debug("Saving item: {}", item.getName());
         // Could add more checks or logic here before it hits the DB.
-        return itemRepository.save(item);
+        Item saved = itemRepository.save(item);
+        addToIdFilterAfterCommit(List.of(saved.getId()));
+        return saved;
+    }
+
+    /**
+     * Inserts a batch of new items in one transaction.
+     * Ids come from the pooled sequence, so Hibernate sends the INSERTs as JDBC batches
+     * (hibernate.jdbc.batch_size) instead of one round trip per row.
+     * Callers keep batches to a sane size, everything here sits in the persistence context until commit.
+     */
+    @Transactional
+    public List<Item> saveAll(List<Item> items) {
+        logger.debug("Saving batch of {} items", items.size());
+        List<Item> saved = itemRepository.saveAll(items);
+        addToIdFilterAfterCommit(saved.stream().map(Item::getId).toList());
+        return saved;
+    }
+
+    /**
+     * New ids only go into the id filter once the insert is committed. Before that a filter rebuild
+     * wouldn't see the row yet, and a rolled back insert has no business being in there anyway.
+     * Outside a transaction (nothing to wait for) they're added right away.
+     */
+    private void addToIdFilterAfterCommit(List<Long> ids) {
+        afterCommit(() -> ids.forEach(idFilter::add));
+    }
+
+    // Runs the action once the current transaction has committed, or right away if there is none.
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     /**
-     * Deleting an item. Check if it's there first, then delete.
-     * Transactional too, just in case.
+     * A write to this item has committed: loads still in flight may have read the old row, so they're
+     * cancelled first (see ItemBatchLoader.invalidate), then the cached copy goes.
+     */
+    private void evictAfterWrite(Long id) {
+        batchLoader.invalidate(id);
+        itemCache.evict(id);
+    }
+
+    /**
+     * Updates an existing item with the given details in one round trip:
+     * a single UPDATE ... WHERE id = ?, no findById first and no merge afterwards.
+     * The id always comes from the argument, never from the payload.
+     * If the details carry a version, the update only applies if the item is still at that version
+     * (optimistic locking), otherwise an ObjectOptimisticLockingFailureException is thrown (409 in the controller).
+     * Without a version it's last-write-wins, like before, and still one statement: the new version isn't
+     * read back, so the returned item has none (no ETag) and the cached copy is dropped instead of replaced.
+     * The cache is only touched after the commit, and loads in flight for the id are cancelled first.
+     * A PUT is the whole item, so no status means NEW again (same as on create) - never NULL, which the
+     * processing job would never pick up.
+     * Returns the updated item, or empty if there was no item with that id.
+     */
+    @Transactional
+    public Optional<Item> update(Long id, Item details) {
+        logger.debug("Updating item with id: {}", id);
+        if (!idFilter.mightContain(id)) {
+            return Optional.empty(); // Definitely not there, same answer as 0 rows updated.
+        }
+        Long expectedVersion = details.getVersion();
+        ItemStatus status = details.getStatus() != null ? details.getStatus() : ItemStatus.NEW;
+        int updated = itemRepository.updateItem(id, expectedVersion, details.getName(), details.getDescription(),
+                status, details.getEmail());
+        if (updated == 0) {
+            // Only now is it worth a second query: missing item, or somebody else updated it first?
+            if (expectedVersion != null && itemRepository.existsById(id)) {
+                logger.debug("Item with id: {} is no longer at version {}.", id, expectedVersion);
+                throw new ObjectOptimisticLockingFailureException(Item.class, id);
+            }
+            return Optional.empty();
+        }
+        // The row now holds exactly these values, no need to read it back.
+        Item updatedItem = new Item(id, details.getName(), details.getDescription(), status, details.getEmail());
+        if (expectedVersion != null) {
+            updatedItem.setVersion(expectedVersion + 1);
+            afterCommit(() -> {
+                batchLoader.invalidate(id);
+                itemCache.put(id, updatedItem); // Write-through, we know exactly what the row looks like now.
+            });
+        } else {
+            afterCommit(() -> evictAfterWrite(id)); // Version unknown, a cached copy would carry a wrong one. Next read loads it.
+        }
+        return Optional.of(updatedItem);
+    }
+
+    /**
+     * Deleting an item with a single DELETE statement.
+     * No existsById + load + remove dance anymore, the affected row count tells us if it was there.
+     * The cached copy (and any load in flight) is dropped once the delete has committed.
      * Returns true if it was deleted, false if not found.
      */
     @Transactional
     public boolean deleteById(Long id) {
-        logger.info("Attempting to delete item with id: {}", id);
-        if (itemRepository.existsById(id)) {
-            itemRepository.deleteById(id);
-            logger.info("Successfully deleted item with id: {}", id);
+        logger.debug("Attempting to delete item with id: {}", id);
+        if (idFilter.mightContain(id) && itemRepository.deleteItemById(id) > 0) {
+            afterCommit(() -> evictAfterWrite(id));
+            logger.debug("Successfully deleted item with id: {}", id);
             return true;
         }
-        logger.warn("Item with id: {} not found for deletion.", id);
+        logger.debug("Item with id: {} not found for deletion.", id);
         return false;
     }
 
     /**
-     * This is the tricky async processing bit.
-     * Original problems:
-     *  - Returned way too early before anything was done.
-     *  - Shared lists/counters without sync = trouble with threads.
-     *  - Errors in one item's processing could mess things up silently.
+     * Registers a new processing job, to be passed to processItemsAsync.
+     * Done separately (and synchronously) so the caller has the job id before the work starts.
+     */
+    public ItemProcessingJob createProcessingJob() {
+        long pending = PENDING_STATUSES.stream().mapToLong(itemRepository::countByStatus).sum();
+        return jobRegistry.create(pending);
+    }
+
+    /**
+     * For a job that never got to run (processItemsAsync was rejected, the job pool is full):
+     * marks it FAILED so pollers don't see it RUNNING forever.
+     */
+    public void abandonProcessingJob(ItemProcessingJob job, Throwable cause) {
+        logger.warn("Processing job {} could not be started: {}", job.getId(), cause.getMessage());
+        job.fail(cause);
+    }
+
+    public Optional<ItemProcessingJob> findProcessingJob(UUID jobId) {
+        return jobRegistry.find(jobId);
+    }
+
+    /**
+     * The big background job: marks every pending (NEW / PENDING) item as PROCESSED, reporting progress into the given job.
+     *
+     * It's incremental: items that are already PROCESSED are never read, the status itself is the checkpoint.
+     * Each pending status is walked separately over the (status, id) index, so a run costs what's new
+     * since the last one, not the size of the table. Running it twice in a row is nearly free.
+     *
+     * It used to fire one CompletableFuture per id, each doing its own findById + save,
+     * so N items meant 2N statements and N queued tasks (and rejections once the pool queue filled up).
+     * Now it walks the pending ids in chunks instead:
+     *  - one keyset query loads the next chunk (pending ids after the last one we saw),
+     *  - one UPDATE ... WHERE id IN (...) flips the status for the whole chunk,
+     *  - every item.processing.commit-interval chunks commit together in their own explicit transaction,
+     *    so there's no giant transaction holding a connection for the whole run, and no commit per item either.
+     * If the bulk update for a chunk blows up (or touches fewer rows than expected), its transaction is
+     * rolled back and redone chunk by chunk / item by item, so one bad row can't take its neighbours down with it.
+     *
+     * Several nodes can run it at the same time: every chunk is claimed (leased) before it's updated,
+     * and the final UPDATE only touches rows that still carry our claim. So the nodes split the work
+     * between them instead of all processing everything. The job's total is then an upper bound,
+     * part of it gets done elsewhere.
      *
-     * How I fixed it:
-     *  - Each item gets its own CompletableFuture.
-     *  - Use CompletableFuture.allOf() to wait for ALL of them.
-     *  - Collect results only from successful futures.
-     *  - Using our Spring-managed 'taskExecutor'.
-     *  - No more shared list modified by all threads during processing.
+     * Back-pressure: reading stays on this thread, the updates go to the itemWorkerExecutor, but never more
+     * than item.processing.max-in-flight-chunks transactions at once. When the window is full we simply wait for a
+     * slot before reading the next chunk, so memory stays fixed however big the table is and we never
+     * flood the executor queue (no RejectedExecutionException, no silently dropped items).
+     * The workers are a separate pool on purpose: this thread blocks until its chunks are done, so if they
+     * queued behind other jobs' coordinators on the same pool, concurrent jobs could starve each other for good.
      */
     @Async("taskExecutor") // Run this whole method on our custom thread pool.
-    @Transactional // One transaction for the whole batch. Could change this if items need to succeed/fail independently.
-    public CompletableFuture<List<Item>> processItemsAsync() {
-        logger.info("Starting asynchronous processing of all items.");
-        List<Long> itemIds = itemRepository.findAllItemIds();
-
-        // No items? Nothing to do, return an empty list fast.
-        if (itemIds.isEmpty()) {
-            logger.info("No items found to process.");
-            return CompletableFuture.completedFuture(List.of());
-        }
-
-        // Spin off a separate async job (CompletableFuture) for each item ID.
-        List<CompletableFuture<Item>> futures = itemIds.stream()
-                .map(id -> processSingleItemAsync(id, taskExecutor)) // Pass the executor along.
-                .collect(Collectors.toList());
-
-        // Now, wait for ALL those little jobs to finish (or fail).
-        // thenApply runs after allOf is done.
-        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                .thenApply(v -> { // 'v' is void here, allOf doesn't combine results itself.
-                    // Ok, all futures are done. Let's see what we got.
-                    // Filter out any 'nulls' - those are items that failed processing.
-                    List<Item> successfullyProcessedItems = futures.stream()
-                            .map(future -> {
-                                try {
-                                    return future.join(); // Get the result from the future.
-                                } catch (Exception e) {
-                                    // Should be rare if processSingleItemAsync handles its errors,
-                                    // but good to catch if a future itself blew up.
-                                    logger.error("Error joining future for an item: {}", e.getMessage());
-                                    return null; // Mark as failed.
-                                }
-                            })
-                            .filter(item -> item != null) // Only keep non-null (successful) items.
-                            .collect(Collectors.toList());
-                    logger.info("Asynchronous processing completed. Successfully processed {} items.", successfullyProcessedItems.size());
-                    return successfullyProcessedItems; // This is the list of successfully processed items.
-                });
-    }
-
-    /**
-     * Helper for processing just one item in the background.
-     * Fetches, updates status, saves.
-     * Returns a CompletableFuture with the Item, or null if it failed.
-     */
-    private CompletableFuture<Item> processSingleItemAsync(Long id, Executor executor) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // Could put a Thread.sleep(100) here to simulate more work,
-                // but can slow down tests.
+    public CompletableFuture<ItemProcessingJob> processItemsAsync(ItemProcessingJob job) {
+        try {
+            runProcessingJob(job);
+            job.complete();
+            return CompletableFuture.completedFuture(job);
+        } catch (RuntimeException e) {
+            logger.error("Processing job {} failed.", job.getId(), e);
+            job.fail(e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 
-                Optional<Item> itemOptional = itemRepository.findById(id);
-                if (itemOptional.isEmpty()) {
-                    logger.warn("Item with ID {} not found during async processing. Skipping.", id);
-                    return null; // Item's gone, nothing to do for this one.
+    /**
+     * Only ids are read and nothing is kept per item: the job just counts, and remembers the ids
+     * that failed in a primitive buffer. So memory stays flat even for million-row runs.
+     */
+    private void runProcessingJob(ItemProcessingJob job) {
+        int chunkSize = processingProperties.getChunkSize();
+        int maxInFlight = processingProperties.getMaxInFlightChunks();
+        logger.info("Starting processing job {} in chunks of {}, at most {} chunks in flight.",
+                job.getId(), chunkSize, maxInFlight);
+        long startedAt = System.nanoTime();
+
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        int commitInterval = processingProperties.getCommitInterval();
+        List<List<Long>> batch = new ArrayList<>(commitInterval); // Chunks that will share one transaction.
+        int chunks = 0;
+        int batches = 0;
+        for (ItemStatus status : PENDING_STATUSES) {
+            long lastId = 0L; // Keyset cursor, ids start at 1. Chunks we flip to PROCESSED just drop out behind it.
+            List<Long> chunk;
+            do {
+                chunk = itemRepository.findIdsByStatusAfter(status, lastId, PageRequest.of(0, chunkSize));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                lastId = chunk.get(chunk.size() - 1);
+                List<Long> claimed = claim(chunk, status, job);
+                if (claimed.isEmpty()) {
+                    logger.debug("Ids {}..{} are claimed by another job, moving on.", chunk.get(0), lastId);
+                    continue;
                 }
+                chunks++;
+                batch.add(claimed);
+                if (batch.size() == commitInterval) {
+                    inFlight.acquireUninterruptibly(); // Blocks while the window is full, that's the back-pressure.
+                    submitBatch(batch, ++batches, job, inFlight);
+                    batch = new ArrayList<>(commitInterval);
+                }
+            } while (chunk.size() == chunkSize); // A short chunk means there's nothing more in this status.
+        }
+        if (!batch.isEmpty()) { // Leftovers that didn't fill a whole commit interval.
+            inFlight.acquireUninterruptibly();
+            submitBatch(batch, ++batches, job, inFlight);
+        }
 
-                Item item = itemOptional.get();
-                // item.setStatus("PROCESSING"); // Could set an intermediate status
-                // itemRepository.save(item);
+        inFlight.acquireUninterruptibly(maxInFlight); // Getting every permit back = all chunks are done.
 
-                // Simulate some work if needed
-                // try { Thread.sleep(new Random().nextInt(50) + 50); } catch (InterruptedException ignored) {}
+        double seconds = Math.max((System.nanoTime() - startedAt) / 1e9, 1e-9);
+        logger.info("Processing job {} completed. Processed {}, skipped {}, conflicts {}, failed {} items in {} chunks / {} transactions, {} s ({} chunks/s, {} items/s).",
+                job.getId(), job.getProcessed(), job.getSkipped(), job.getConflicts(), job.getFailed(), chunks, batches, String.format("%.3f", seconds),
+                String.format("%.1f", chunks / seconds), String.format("%.0f", job.getProcessed() / seconds));
+    }
 
-                item.setStatus("PROCESSED");
-                Item savedItem = itemRepository.save(item); // This is where the actual DB update happens for this item.
-                logger.debug("Successfully processed and saved item with ID: {}", id);
-                return savedItem; // Success!
+    /**
+     * Leases a chunk to this job (the job id is the claim token) so no other node works on it meanwhile.
+     * Usually we get the whole chunk in one statement; only when another node got there first for
+     * some of the rows do we need a second query to see which ones are ours.
+     */
+    private List<Long> claim(List<Long> ids, ItemStatus status, ItemProcessingJob job) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(processingProperties.getLeaseDuration());
+        int claimed = itemRepository.claimIds(ids, status, job.getId(), expiresAt, now);
+        if (claimed == ids.size()) {
+            return ids;
+        }
+        if (claimed == 0) {
+            return List.of();
+        }
+        return itemRepository.findClaimedIds(ids, job.getId());
+    }
 
+    /**
+     * Hands a batch of chunks to the worker executor. The permit taken by the caller is given back when it's done.
+     * If the executor still refuses the task (pool and queue full with other jobs' chunks), we run it right here
+     * instead of dropping it - same idea as CallerRunsPolicy.
+     */
+    private void submitBatch(List<List<Long>> chunks, int batchNumber, ItemProcessingJob job, Semaphore inFlight) {
+        Runnable task = () -> {
+            long batchStartedAt = System.nanoTime();
+            try {
+                processChunks(chunks, job);
+                List<Long> lastChunk = chunks.get(chunks.size() - 1);
+                logger.debug("Batch {} ({} chunks, up to id {}) done in {} ms.", batchNumber, chunks.size(),
+                        lastChunk.get(lastChunk.size() - 1), (System.nanoTime() - batchStartedAt) / 1_000_000);
+            } finally {
+                inFlight.release();
+            }
+        };
+        try {
+            workerExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Executor rejected batch {}, processing it on the job thread.", batchNumber);
+            task.run();
+        }
+    }
+
+    /**
+     * Flips a batch of chunks to PROCESSED, one UPDATE per chunk, all in ONE explicit transaction
+     * (item.processing.commit-interval chunks), and records the outcome in the job.
+     * The transaction is opened here on the worker thread and committed before we return, so
+     * a connection is only held while statements are actually running, never for the whole job.
+     * If any chunk touches fewer rows than expected (or a statement fails), the whole transaction is
+     * rolled back - claims included - and we redo it chunk by chunk, then item by item for the chunk
+     * that's actually the problem. So one bad row still can't take its neighbours down with it.
+     */
+    private void processChunks(List<List<Long>> chunks, ItemProcessingJob job) {
+        int expected = chunks.stream().mapToInt(List::size).sum();
+        Long firstId = chunks.get(0).get(0);
+        try {
+            int updated = updateWithRetry(() -> transactionTemplate.execute(tx -> {
+                int rows = 0;
+                for (List<Long> ids : chunks) {
+                    int chunkRows = itemRepository.updateStatusByIds(ids, ItemStatus.PROCESSED, job.getId());
+                    rows += chunkRows;
+                    if (chunkRows != ids.size()) {
+                        tx.setRollbackOnly(); // Redone piece by piece below, don't keep half of it.
+                        break;
+                    }
+                }
+                return rows;
+            }));
+            if (updated == expected) {
+                // Bulk updates bypass the cache, so drop stale copies here (after the commit).
+                chunks.forEach(ids -> ids.forEach(this::evictAfterWrite));
+                job.recordProcessed(updated);
+                return;
+            }
+            // Somebody deleted or updated items under our feet (or our lease ran out), figure out which ones below.
+            logger.warn("Bulk update touched fewer than the {} items from id {}, rolled back and checking them piece by piece.",
+                    expected, firstId);
+        } catch (Exception e) {
+            logger.warn("Bulk update failed for {} items from id {}: {}. Retrying piece by piece.",
+                    expected, firstId, e.getMessage());
+        }
+        if (chunks.size() > 1) {
+            chunks.forEach(ids -> processChunks(List.of(ids), job)); // Own transaction per chunk.
+        } else {
+            processItemByItem(chunks.get(0), job);
+        }
+    }
+
+    /**
+     * Slow path for a chunk that couldn't be updated in one go.
+     * Each item gets its own statement, so a failing row only fails itself.
+     * A row we no longer hold is a skip if it's gone, and a conflict if it's still there: it was updated
+     * after we claimed it (or another node took it over), and its new state wins - never overwritten.
+     */
+    private void processItemByItem(List<Long> ids, ItemProcessingJob job) {
+        for (Long id : ids) {
+            try {
+                if (updateWithRetry(() -> itemRepository.updateStatusByIds(List.of(id), ItemStatus.PROCESSED, job.getId())) == 1) {
+                    evictAfterWrite(id);
+                    job.recordProcessed(1);
+                } else if (itemRepository.existsById(id)) {
+                    logger.debug("Item with ID {} changed after it was claimed, leaving it as it is.", id);
+                    job.recordConflict(1);
+                } else {
+                    logger.debug("Item with ID {} not found during async processing. Skipping.", id);
+                    job.recordSkipped(1);
+                }
             } catch (Exception e) {
-                // Catch-all for this one item's processing.
-                // Log it and return null so other items can continue.
+                // Log it and carry on so other items can continue.
                 logger.error("Error processing item with ID {}: {}", id, e.getMessage(), e);
-                return null; // Indicate failure for this specific item.
+                job.recordFailure(id);
+            }
+        }
+    }
+
+    /**
+     * Runs one update statement, retrying with exponential backoff when it lost a race with another
+     * transaction (lock timeout, deadlock victim - TransientDataAccessExceptions).
+     * Those usually go through a moment later, so no need to lock anything up front.
+     * Rows changed since the claim aren't retried: the UPDATE simply doesn't match them (see processItemByItem).
+     * Anything else, or running out of retries, is thrown to the caller as before.
+     */
+    private int updateWithRetry(IntSupplier update) {
+        long backoffMs = processingProperties.getRetryBackoff().toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return update.getAsInt();
+            } catch (TransientDataAccessException e) {
+                if (attempt > processingProperties.getMaxRetries()) {
+                    throw e;
+                }
+                logger.debug("Update hit {}, retry {} of {} in ~{} ms.", e.getClass().getSimpleName(),
+                        attempt, processingProperties.getMaxRetries(), backoffMs);
+                try {
+                    // Jitter, so workers that collided don't collide again in lockstep.
+                    Thread.sleep(backoffMs + ThreadLocalRandom.current().nextLong(backoffMs + 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoffMs *= 2;
             }
-        }, executor); // Make sure this runs on our executor.
+        }
     }
-}
\ No newline at end of file
+}
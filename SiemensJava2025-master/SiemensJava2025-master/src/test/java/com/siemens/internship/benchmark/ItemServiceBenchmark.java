@@ -0,0 +1,204 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.InternshipApplication;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemProcessingJob;
+import com.siemens.internship.service.ItemService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the ItemService / ItemRepository hot paths, against an in-memory H2
+ * seeded with 10k / 100k / 1M items. Not part of mvn test, run it on purpose:
+ * <pre>
+ *   mvn test-compile
+ *   java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *        com.siemens.internship.benchmark.ItemServiceBenchmark
+ * </pre>
+ * (or just run main() from the IDE). Each benchmark reports throughput plus the sampled latency
+ * distribution (p50/p90/p99/p99.9...), and the results land in target/jmh-result.json
+ * so two runs can be diffed before a rollout.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ItemServiceBenchmark {
+
+    private static final int SEED_BATCH = 10_000;
+    static final int DELETE_BATCH = 10_000; // Deletes per measured single-shot batch.
+
+    @Param({"10000", "100000", "1000000"})
+    public int itemCount;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private ItemRepository itemRepository;
+    private JdbcTemplate jdbc;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        // Whole app minus the web layer, on its own H2 database per trial.
+        context = new SpringApplicationBuilder(InternshipApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench" + itemCount + ";DB_CLOSE_DELAY=-1",
+                        "spring.h2.console.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+        itemService = context.getBean(ItemService.class);
+        itemRepository = context.getBean(ItemRepository.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+        seed(jdbc);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    // Plain JDBC batches, seeding 1M rows through JPA would take longer than the benchmark itself.
+    private void seed(JdbcTemplate jdbc) {
+        for (int from = 1; from <= itemCount; from += SEED_BATCH) {
+            List<Object[]> rows = new ArrayList<>(SEED_BATCH);
+            for (long id = from; id < from + SEED_BATCH && id <= itemCount; id++) {
+                rows.add(new Object[]{id, "Item " + id, "Benchmark item " + id, ItemStatus.NEW.getCode(), "item" + id + "@bench.test", 0L});
+            }
+            jdbc.batchUpdate("INSERT INTO item (id, name, description, status, email, version) VALUES (?, ?, ?, ?, ?, ?)", rows);
+        }
+        // Move the sequence past the seeded ids (plus one pooled block, Hibernate treats the value as the high end).
+        jdbc.execute("ALTER SEQUENCE item_seq RESTART WITH " + (itemCount + 51));
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, itemCount + 1);
+    }
+
+    // Through the service, i.e. with the item cache in front.
+    @Benchmark
+    public Optional<Item> findById() {
+        return itemService.findById(randomId());
+    }
+
+    // Straight to the repository, what a cache miss costs.
+    @Benchmark
+    public Optional<Item> findByIdUncached() {
+        return itemRepository.findById(randomId());
+    }
+
+    @Benchmark
+    public Item save() {
+        return itemService.save(new Item("Benchmark item", "Created by the benchmark", ItemStatus.NEW, "save@bench.test"));
+    }
+
+    /**
+     * Deletes items created before the iteration (outside the measurement), so the table doesn't run dry.
+     * Single-shot batches of DELETE_BATCH calls, not Throughput/SampleTime: creating the item per call
+     * (Level.Invocation) would cost more than the delete itself and drown it in setup and timer overhead.
+     * Reported per batch, divide by DELETE_BATCH for one delete.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 2, batchSize = DELETE_BATCH)
+    @Measurement(iterations = 5, batchSize = DELETE_BATCH)
+    public boolean deleteById(DeleteState state) {
+        return itemService.deleteById(state.nextId());
+    }
+
+    @State(Scope.Thread)
+    public static class DeleteState {
+        private final List<Long> ids = new ArrayList<>(DELETE_BATCH);
+        private int next;
+
+        // One block of DELETE_BATCH fresh items per iteration, exactly one per call in the batch.
+        @Setup(Level.Iteration)
+        public void createItems(ItemServiceBenchmark benchmark) {
+            List<Item> items = new ArrayList<>(DELETE_BATCH);
+            for (int i = 0; i < DELETE_BATCH; i++) {
+                items.add(new Item("Doomed item", "Deleted by the benchmark", ItemStatus.NEW, "delete@bench.test"));
+            }
+            ids.clear();
+            benchmark.itemService.saveAll(items).forEach(item -> ids.add(item.getId()));
+            next = 0;
+        }
+
+        long nextId() {
+            return ids.get(next++);
+        }
+    }
+
+    @Benchmark
+    public List<Item> findPage() {
+        return itemService.findPage(randomId(), 100);
+    }
+
+    // The whole table in one List. Expect this one to hurt at 1M.
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Measurement(iterations = 5)
+    public List<Item> findAll() {
+        return itemService.findAll();
+    }
+
+    // A full processing run over the table, start to finish.
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Measurement(iterations = 5)
+    public ItemProcessingJob processItemsAsync(PendingItemsState state) throws Exception {
+        ItemProcessingJob job = itemService.createProcessingJob();
+        return itemService.processItemsAsync(job).get();
+    }
+
+    /**
+     * The job only reads pending items, so after the first run there'd be nothing left to time.
+     * Puts every row back to NEW (and drops leftover claims) before each iteration, in one plain UPDATE.
+     */
+    @State(Scope.Benchmark)
+    public static class PendingItemsState {
+
+        @Setup(Level.Iteration)
+        public void resetStatuses(ItemServiceBenchmark benchmark) {
+            benchmark.jdbc.update("UPDATE item SET status = ?, claim_token = NULL, claim_expires_at = NULL",
+                    ItemStatus.NEW.getCode());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ItemServiceBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
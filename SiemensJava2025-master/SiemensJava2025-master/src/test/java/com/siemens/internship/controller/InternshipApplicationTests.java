@@ -2,7 +2,11 @@ package com.siemens.internship.controller; // Make sure this matches your test p
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
 // import com.siemens.internship.repository.ItemRepository; // Only if directly used and not fully mocked
+import com.siemens.internship.service.ItemLookupResult;
+import com.siemens.internship.service.ItemProcessingJob;
+import com.siemens.internship.service.ItemProcessingSummary;
 import com.siemens.internship.service.ItemService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,20 +16,32 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -56,8 +72,8 @@ class ItemControllerIntegrationTests {
 	void setUp() {
 		// Some test data to work with.
 		// itemRepository.deleteAll(); // If using a real DB and need clean slate.
-		item1 = new Item(1L, "Test Item 1", "Description 1", "NEW", "test1@example.com");
-		item2 = new Item(2L, "Test Item 2", "Description 2", "NEW", "test2@example.com");
+		item1 = new Item(1L, "Test Item 1", "Description 1", ItemStatus.NEW, "test1@example.com");
+		item2 = new Item(2L, "Test Item 2", "Description 2", ItemStatus.NEW, "test2@example.com");
 	}
 
 	@AfterEach
@@ -88,6 +104,179 @@ class ItemControllerIntegrationTests {
 		verify(itemService, times(1)).findAll(); // Make sure findAll was called once.
 	}
 
+	// Keyset page: full page should come back with a Link to the next one.
+	@Test
+	void getAllItems_withAfterAndLimit_shouldReturnKeysetPage() throws Exception {
+		when(itemService.findPage(0L, 2)).thenReturn(Arrays.asList(item1, item2));
+
+		mockMvc.perform(get("/api/items").param("after", "0").param("limit", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(2)))
+				.andExpect(header().string("Link", "</api/items?after=2&limit=2>; rel=\"next\""));
+
+		verify(itemService, times(1)).findPage(0L, 2);
+		verify(itemService, never()).findAll(); // Must not load the whole table.
+	}
+
+	// Last (short) page: no Link header, there's nothing after it.
+	@Test
+	void getAllItems_withShortPage_shouldNotLinkToNextPage() throws Exception {
+		when(itemService.findPage(1L, 10)).thenReturn(List.of(item2));
+
+		mockMvc.perform(get("/api/items").param("after", "1").param("limit", "10"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(1)))
+				.andExpect(header().doesNotExist("Link"));
+	}
+
+	// Status filter: goes to the status query, and the next-page Link keeps the filter.
+	@Test
+	void getAllItems_withStatus_shouldReturnFilteredPage() throws Exception {
+		when(itemService.findPageByStatus(ItemStatus.NEW, 0L, 2)).thenReturn(Arrays.asList(item1, item2));
+
+		mockMvc.perform(get("/api/items").param("status", "NEW").param("limit", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(2)))
+				.andExpect(jsonPath("$[0].status", is("NEW")))
+				.andExpect(header().string("Link", "</api/items?after=2&limit=2&status=NEW>; rel=\"next\""));
+
+		verify(itemService, times(1)).findPageByStatus(ItemStatus.NEW, 0L, 2);
+		verify(itemService, never()).findPage(anyLong(), anyInt());
+	}
+
+	// Projection: only the asked-for fields (plus id) come back.
+	@Test
+	void getItemFields_shouldReturnOnlyRequestedFields() throws Exception {
+		Map<String, Object> row = new LinkedHashMap<>();
+		row.put("id", 1L);
+		row.put("name", "Test Item 1");
+		row.put("status", ItemStatus.NEW);
+		when(itemService.findFieldsPage(any(), isNull(), eq(0L), eq(100))).thenReturn(List.of(row));
+
+		mockMvc.perform(get("/api/items").param("fields", "name,status"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].id", is(1)))
+				.andExpect(jsonPath("$[0].name", is("Test Item 1")))
+				.andExpect(jsonPath("$[0].status", is("NEW")))
+				.andExpect(jsonPath("$[0].description").doesNotExist());
+
+		ArgumentCaptor<Collection<String>> fieldsCaptor = ArgumentCaptor.forClass(Collection.class);
+		verify(itemService).findFieldsPage(fieldsCaptor.capture(), isNull(), eq(0L), eq(100));
+		assertEquals(List.of("id", "name", "status"), List.copyOf(fieldsCaptor.getValue()));
+		verify(itemService, never()).findAll();
+	}
+
+	// Fields we don't know (or don't expose) are a 400, not a query.
+	@Test
+	void getItemFields_withUnknownField_shouldReturnBadRequest() throws Exception {
+		mockMvc.perform(get("/api/items").param("fields", "name,claimToken"))
+				.andExpect(status().isBadRequest());
+
+		verify(itemService, never()).findFieldsPage(any(), any(), anyLong(), anyInt());
+	}
+
+	// Many ids in one call: found items plus the ids that weren't there.
+	@Test
+	void getItemsByIds_shouldReturnFoundAndMissing() throws Exception {
+		when(itemService.findAllByIds(List.of(1L, 2L, 99L))).thenReturn(new ItemLookupResult(List.of(item1, item2), List.of(99L)));
+
+		mockMvc.perform(get("/api/items").param("ids", "1,2,99"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items", hasSize(2)))
+				.andExpect(jsonPath("$.items[0].id", is(1)))
+				.andExpect(jsonPath("$.missingIds[0]", is(99)));
+
+		verify(itemService, never()).findById(any());
+	}
+
+	// ids + fields together is a clear 400, not an ambiguous mapping.
+	@Test
+	void getItemsByIds_withFields_shouldReturnBadRequest() throws Exception {
+		mockMvc.perform(get("/api/items").param("ids", "1,2").param("fields", "name"))
+				.andExpect(status().isBadRequest());
+
+		verify(itemService, never()).findAllByIds(any());
+		verify(itemService, never()).findFieldsPage(any(), any(), anyLong(), anyInt());
+	}
+
+	// stream=true must not win over ids / fields and stream the whole table: 400 instead.
+	@Test
+	void streamAllItems_withIdsOrFields_shouldReturnBadRequest() throws Exception {
+		mockMvc.perform(get("/api/items").param("ids", "1,2").param("stream", "true"))
+				.andExpect(status().isBadRequest())
+				.andExpect(request().asyncNotStarted());
+		mockMvc.perform(get("/api/items").param("fields", "name").param("stream", "true"))
+				.andExpect(status().isBadRequest())
+				.andExpect(request().asyncNotStarted());
+		mockMvc.perform(get("/api/items").param("ids", "1,2").param("fields", "name").param("stream", "true"))
+				.andExpect(status().isBadRequest())
+				.andExpect(request().asyncNotStarted());
+
+		verify(itemService, never()).streamAll();
+		verify(itemService, never()).findAllByIds(any());
+		verify(itemService, never()).findFieldsPage(any(), any(), anyLong(), anyInt());
+	}
+
+	// Same thing with the ids in a POST body, for lists too long for a URL.
+	@Test
+	void lookupItems_withIdsInBody_shouldReturnFoundAndMissing() throws Exception {
+		when(itemService.findAllByIds(List.of(2L, 5L))).thenReturn(new ItemLookupResult(List.of(item2), List.of(5L)));
+
+		mockMvc.perform(post("/api/items/lookup")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("[2, 5]"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items[0].name", is("Test Item 2")))
+				.andExpect(jsonPath("$.missingIds[0]", is(5)));
+	}
+
+	// Silly page sizes get a 400.
+	@Test
+	void getAllItems_withTooLargeLimit_shouldReturnBadRequest() throws Exception {
+		mockMvc.perform(get("/api/items").param("limit", "100000"))
+				.andExpect(status().isBadRequest());
+
+		verify(itemService, never()).findPage(anyLong(), anyInt());
+	}
+
+	// Streaming mode: same JSON array as the plain GET, just written incrementally.
+	@Test
+	void streamAllItems_shouldWriteJsonArray() throws Exception {
+		when(itemService.streamAll()).thenReturn(Stream.of(item1, item2));
+
+		MvcResult asyncResult = mockMvc.perform(get("/api/items").param("stream", "true"))
+				.andExpect(request().asyncStarted()) // StreamingResponseBody runs async.
+				.andReturn();
+
+		mockMvc.perform(asyncDispatch(asyncResult))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$", hasSize(2)))
+				.andExpect(jsonPath("$[0].name", is("Test Item 1")))
+				.andExpect(jsonPath("$[1].name", is("Test Item 2")));
+
+		verify(itemService, never()).findAll();
+	}
+
+	// The stream must be written on our bounded pool, not on a fresh thread per request (SimpleAsyncTaskExecutor).
+	@Test
+	void streamAllItems_shouldRunOnBoundedStreamPool() throws Exception {
+		AtomicReference<String> streamThread = new AtomicReference<>();
+		when(itemService.streamAll()).thenAnswer(invocation -> {
+			streamThread.set(Thread.currentThread().getName());
+			return Stream.of(item1);
+		});
+
+		MvcResult asyncResult = mockMvc.perform(get("/api/items").param("stream", "true"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(asyncResult))
+				.andExpect(status().isOk());
+
+		assertNotNull(streamThread.get());
+		assertTrue(streamThread.get().startsWith("ItemStream-"), "Streamed on " + streamThread.get());
+	}
+
 	// Check GET by ID - happy path.
 	@Test
 	void getItemById_whenItemExists_shouldReturnItem() throws Exception {
@@ -101,6 +290,60 @@ class ItemControllerIntegrationTests {
 		verify(itemService, times(1)).findById(1L);
 	}
 
+	// ETag is the version, and sending it back gets an empty 304.
+	@Test
+	void getItemById_withMatchingIfNoneMatch_shouldReturnNotModified() throws Exception {
+		item1.setVersion(3L);
+		when(itemService.findById(1L)).thenReturn(Optional.of(item1));
+
+		mockMvc.perform(get("/api/items/1"))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"3\""));
+
+		mockMvc.perform(get("/api/items/1").header("If-None-Match", "\"3\""))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+	}
+
+	// Same for the list: unchanged list, 304. Changed list, new ETag and the full body.
+	@Test
+	void getAllItems_withIfNoneMatch_shouldOnlyReturnBodyWhenChanged() throws Exception {
+		when(itemService.findAll()).thenReturn(Arrays.asList(item1, item2));
+		String etag = mockMvc.perform(get("/api/items"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader("ETag");
+		assertNotNull(etag);
+
+		mockMvc.perform(get("/api/items").header("If-None-Match", etag))
+				.andExpect(status().isNotModified());
+
+		item2.setVersion(1L); // Somebody updated item 2.
+		mockMvc.perform(get("/api/items").header("If-None-Match", etag))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(2)));
+	}
+
+	// Same-size pages with different items must not share an ETag, or a stale page gets a 304.
+	// (id 1, version 31) vs (id 2, version 0) collided under the old linear 31 * h + x hash.
+	@Test
+	void getAllItems_withDifferentPagesOfSameSize_shouldReturnDifferentETags() throws Exception {
+		Item first = new Item(1L, "Test Item 1", "Description 1", ItemStatus.NEW, "test1@example.com");
+		first.setVersion(31L);
+		Item second = new Item(2L, "Test Item 2", "Description 2", ItemStatus.NEW, "test2@example.com");
+		second.setVersion(0L);
+
+		when(itemService.findPage(0L, 1)).thenReturn(List.of(first));
+		String firstETag = mockMvc.perform(get("/api/items").param("after", "0").param("limit", "1"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader("ETag");
+
+		when(itemService.findPage(0L, 1)).thenReturn(List.of(second)); // Item 1 was deleted meanwhile.
+		mockMvc.perform(get("/api/items").param("after", "0").param("limit", "1").header("If-None-Match", firstETag))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", not(firstETag)))
+				.andExpect(jsonPath("$[0].id", is(2)));
+	}
+
 	// Check GET by ID - when item's not there (expect 404).
 	@Test
 	void getItemById_whenItemDoesNotExist_shouldReturnNotFound() throws Exception {
@@ -115,8 +358,8 @@ class ItemControllerIntegrationTests {
 	// Create a new item - should work (201 Created).
 	@Test
 	void createItem_withValidData_shouldReturnCreatedItem() throws Exception {
-		Item newItem = new Item("New Item", "New Desc", "PENDING", "new@example.com");
-		Item savedItem = new Item(3L, "New Item", "New Desc", "PENDING", "new@example.com"); // What the service returns.
+		Item newItem = new Item("New Item", "New Desc", ItemStatus.PENDING, "new@example.com");
+		Item savedItem = new Item(3L, "New Item", "New Desc", ItemStatus.PENDING, "new@example.com"); // What the service returns.
 
 		when(itemService.save(any(Item.class))).thenReturn(savedItem);
 
@@ -131,10 +374,32 @@ class ItemControllerIntegrationTests {
 		verify(itemService, times(1)).save(any(Item.class));
 	}
 
+	// An id (or version) in the payload is ignored, POST always creates a new row.
+	@Test
+	void createItem_withIdInPayload_shouldIgnoreIt() throws Exception {
+		Item newItem = new Item(42L, "New Item", "New Desc", ItemStatus.NEW, "new@example.com");
+		newItem.setVersion(7L);
+		when(itemService.save(any(Item.class))).thenAnswer(invocation -> {
+			Item toSave = invocation.getArgument(0);
+			return new Item(3L, toSave.getName(), toSave.getDescription(), toSave.getStatus(), toSave.getEmail());
+		});
+
+		mockMvc.perform(post("/api/items")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(newItem)))
+				.andExpect(status().isCreated())
+				.andExpect(header().string("Location", "/api/items/3"));
+
+		ArgumentCaptor<Item> itemCaptor = ArgumentCaptor.forClass(Item.class);
+		verify(itemService, times(1)).save(itemCaptor.capture());
+		assertNull(itemCaptor.getValue().getId());
+		assertNull(itemCaptor.getValue().getVersion());
+	}
+
 	// Try to create an item with bad data - expect 400 Bad Request.
 	@Test
 	void createItem_withInvalidData_shouldReturnBadRequest() throws Exception {
-		Item invalidItem = new Item("", "Desc", "PENDING", "not-an-email"); // Blank name, bad email.
+		Item invalidItem = new Item("", "Desc", ItemStatus.PENDING, "not-an-email"); // Blank name, bad email.
 
 		// Don't need to mock itemService.save() here, validation should stop it before that.
 		MvcResult result = mockMvc.perform(post("/api/items")
@@ -150,46 +415,206 @@ class ItemControllerIntegrationTests {
 		verify(itemService, never()).save(any(Item.class)); // Make sure 'save' was NOT called.
 	}
 
+	// Batch create from a JSON array: all valid, all saved in one go, ids from the payload ignored.
+	@Test
+	void createItems_withValidArray_shouldReturnCreatedItems() throws Exception {
+		List<Item> newItems = List.of(
+				new Item(77L, "Batch Item 1", "Desc", ItemStatus.NEW, "b1@example.com"),
+				new Item(null, "Batch Item 2", "Desc", ItemStatus.NEW, "b2@example.com"));
+		when(itemService.saveAll(anyList())).thenAnswer(invocation -> {
+			List<Item> toSave = invocation.getArgument(0);
+			long nextId = 10;
+			for (Item item : toSave) {
+				item.setId(nextId++);
+			}
+			return toSave;
+		});
+
+		mockMvc.perform(post("/api/items/batch")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(newItems)))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$", hasSize(2)))
+				.andExpect(jsonPath("$[0].id", is(10)))
+				.andExpect(jsonPath("$[1].name", is("Batch Item 2")));
+
+		ArgumentCaptor<List<Item>> captor = ArgumentCaptor.forClass(List.class);
+		verify(itemService, times(1)).saveAll(captor.capture());
+		assertEquals(2, captor.getValue().size());
+	}
+
+	// One bad element rejects the whole array, errors keyed by index.
+	@Test
+	void createItems_withInvalidElement_shouldReturnBadRequestAndSaveNothing() throws Exception {
+		List<Item> newItems = List.of(
+				new Item("Batch Item 1", "Desc", ItemStatus.NEW, "b1@example.com"),
+				new Item("", "Desc", ItemStatus.NEW, "not-an-email"));
+
+		mockMvc.perform(post("/api/items/batch")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(newItems)))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$['1'].name", containsString("cannot be blank")))
+				.andExpect(jsonPath("$['1'].email", containsString("valid email address")))
+				.andExpect(jsonPath("$['0']").doesNotExist());
+
+		verify(itemService, never()).saveAll(anyList());
+	}
+
+	// A null element is a validation error for its index, not a 500 from the validator.
+	@Test
+	void createItems_withNullElement_shouldReturnBadRequestAndSaveNothing() throws Exception {
+		mockMvc.perform(post("/api/items/batch")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("[" + objectMapper.writeValueAsString(new Item("Batch Item 1", "Desc", ItemStatus.NEW, "b1@example.com")) + ", null]"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$['1'].item", is("Item must not be null")))
+				.andExpect(jsonPath("$['0']").doesNotExist());
+
+		verify(itemService, never()).saveAll(anyList());
+	}
+
+	// NDJSON: good lines are saved, bad ones reported with their line number.
+	@Test
+	void createItemsFromNdjson_shouldSaveValidLinesAndReportInvalidOnes() throws Exception {
+		String ndjson = objectMapper.writeValueAsString(new Item("Feed Item 1", "Desc", ItemStatus.NEW, "f1@example.com")) + "\n"
+				+ "{not json\n"
+				+ objectMapper.writeValueAsString(new Item("", "Desc", ItemStatus.NEW, "f3@example.com")) + "\n"
+				+ "\n"
+				+ objectMapper.writeValueAsString(new Item("Feed Item 4", "Desc", ItemStatus.NEW, "f4@example.com")) + "\n";
+		when(itemService.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+		mockMvc.perform(post("/api/items/batch")
+						.contentType("application/x-ndjson")
+						.content(ndjson))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.created", is(2)))
+				.andExpect(jsonPath("$.rejected", is(2)))
+				.andExpect(jsonPath("$.rejectedLines[0].line", is(2)))
+				.andExpect(jsonPath("$.rejectedLines[1].line", is(3)))
+				.andExpect(jsonPath("$.rejectedLines[1].errors.name", containsString("cannot be blank")));
+
+		verify(itemService, times(1)).saveAll(anyList()); // Fewer than a commit's worth, so one flush at the end.
+	}
+
+	// NDJSON line "null": rejected like any other bad line, the rest still goes in.
+	@Test
+	void createItemsFromNdjson_withNullLine_shouldRejectThatLine() throws Exception {
+		String ndjson = "null\n"
+				+ objectMapper.writeValueAsString(new Item("Feed Item 2", "Desc", ItemStatus.NEW, "f2@example.com")) + "\n";
+		when(itemService.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+		mockMvc.perform(post("/api/items/batch")
+						.contentType("application/x-ndjson")
+						.content(ndjson))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.created", is(1)))
+				.andExpect(jsonPath("$.rejected", is(1)))
+				.andExpect(jsonPath("$.rejectedLines[0].line", is(1)))
+				.andExpect(jsonPath("$.rejectedLines[0].errors.item", is("Item must not be null")));
+	}
+
 	// Update an existing item.
 	@Test
 	void updateItem_whenItemExistsAndValidData_shouldReturnOk() throws Exception {
-		Item updatedDetails = new Item(1L, "Updated Item 1", "Updated Desc 1", "UPDATED", "updated1@example.com");
+		Item updatedDetails = new Item(5L, "Updated Item 1", "Updated Desc 1", ItemStatus.PENDING, "updated1@example.com");
 
-		// When findById is called for item 1, return the original item1.
-		when(itemService.findById(1L)).thenReturn(Optional.of(item1));
-		// When save is called, just return the item that was passed to it (simulates successful update).
-		when(itemService.save(any(Item.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		// The service does the update in one go and hands back the new state.
+		when(itemService.update(eq(1L), any(Item.class))).thenAnswer(invocation -> {
+			Item details = invocation.getArgument(1);
+			return Optional.of(new Item(1L, details.getName(), details.getDescription(), details.getStatus(), details.getEmail()));
+		});
 
 		mockMvc.perform(put("/api/items/1")
 						.contentType(MediaType.APPLICATION_JSON)
 						.content(objectMapper.writeValueAsString(updatedDetails)))
 				.andExpect(status().isOk()) // Expect 200 OK.
-				.andExpect(jsonPath("$.id", is(1)))
+				.andExpect(jsonPath("$.id", is(1))) // ID comes from the path, not the payload.
 				.andExpect(jsonPath("$.name", is("Updated Item 1")))
 				.andExpect(jsonPath("$.email", is("updated1@example.com")));
 
-		ArgumentCaptor<Item> itemCaptor = ArgumentCaptor.forClass(Item.class); // To capture the item passed to save().
-		verify(itemService, times(1)).findById(1L);
-		verify(itemService, times(1)).save(itemCaptor.capture());
+		ArgumentCaptor<Item> itemCaptor = ArgumentCaptor.forClass(Item.class); // To capture the details passed to update().
+		verify(itemService, times(1)).update(eq(1L), itemCaptor.capture());
+		verify(itemService, never()).findById(any()); // No read-before-write anymore.
+		verify(itemService, never()).save(any(Item.class));
 
-		// Check that the item passed to save() had the right changes.
+		// Check that the details passed to update() had the right changes.
 		assertEquals("Updated Item 1", itemCaptor.getValue().getName());
-		assertEquals(item1.getId(), itemCaptor.getValue().getId()); // ID should not have changed from payload.
 	}
 
 	// Try to update an item that doesn't exist (expect 404).
 	@Test
 	void updateItem_whenItemDoesNotExist_shouldReturnNotFound() throws Exception {
-		Item updatedDetails = new Item(99L, "Updated Item", "Desc", "S", "update@example.com");
-		when(itemService.findById(99L)).thenReturn(Optional.empty()); // Item not found.
+		Item updatedDetails = new Item(99L, "Updated Item", "Desc", ItemStatus.NEW, "update@example.com");
+		when(itemService.update(eq(99L), any(Item.class))).thenReturn(Optional.empty()); // Zero rows updated.
 
 		mockMvc.perform(put("/api/items/99")
 						.contentType(MediaType.APPLICATION_JSON)
 						.content(objectMapper.writeValueAsString(updatedDetails)))
 				.andExpect(status().isNotFound());
 
-		verify(itemService, times(1)).findById(99L);
-		verify(itemService, never()).save(any(Item.class)); // Save shouldn't be called.
+		verify(itemService, times(1)).update(eq(99L), any(Item.class));
+	}
+
+	// Stale version: somebody else updated the item first (expect 409).
+	@Test
+	void updateItem_whenVersionIsStale_shouldReturnConflict() throws Exception {
+		Item staleDetails = new Item(1L, "Updated Item", "Desc", ItemStatus.NEW, "update@example.com");
+		staleDetails.setVersion(3L);
+		when(itemService.update(eq(1L), any(Item.class))).thenThrow(new ObjectOptimisticLockingFailureException(Item.class, 1L));
+
+		mockMvc.perform(put("/api/items/1")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(staleDetails)))
+				.andExpect(status().isConflict())
+				.andExpect(jsonPath("$.error").exists());
+
+		ArgumentCaptor<Item> itemCaptor = ArgumentCaptor.forClass(Item.class);
+		verify(itemService, times(1)).update(eq(1L), itemCaptor.capture());
+		assertEquals(3L, itemCaptor.getValue().getVersion()); // The client's version made it to the service.
+	}
+
+	// If-Match feeds the expected version, and a mismatch is a 412.
+	@Test
+	void updateItem_whenIfMatchIsStale_shouldReturnPreconditionFailed() throws Exception {
+		Item details = new Item(1L, "Updated Item", "Desc", ItemStatus.NEW, "update@example.com");
+		when(itemService.update(eq(1L), any(Item.class))).thenThrow(new ObjectOptimisticLockingFailureException(Item.class, 1L));
+
+		mockMvc.perform(put("/api/items/1")
+						.header("If-Match", "\"7\"")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(details)))
+				.andExpect(status().isPreconditionFailed());
+
+		ArgumentCaptor<Item> itemCaptor = ArgumentCaptor.forClass(Item.class);
+		verify(itemService, times(1)).update(eq(1L), itemCaptor.capture());
+		assertEquals(7L, itemCaptor.getValue().getVersion());
+	}
+
+	// If-Match on an item that isn't there: no current representation to match, so 412 rather than 404.
+	@Test
+	void updateItem_whenIfMatchAndItemDoesNotExist_shouldReturnPreconditionFailed() throws Exception {
+		Item details = new Item(99L, "Updated Item", "Desc", ItemStatus.NEW, "update@example.com");
+		when(itemService.update(eq(99L), any(Item.class))).thenReturn(Optional.empty());
+
+		mockMvc.perform(put("/api/items/99")
+						.header("If-Match", "*")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(details)))
+				.andExpect(status().isPreconditionFailed());
+	}
+
+	// Invalid payload never reaches the service.
+	@Test
+	void updateItem_withInvalidData_shouldReturnBadRequest() throws Exception {
+		Item invalidDetails = new Item(1L, "", "Desc", ItemStatus.NEW, "not-an-email");
+
+		mockMvc.perform(put("/api/items/1")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(invalidDetails)))
+				.andExpect(status().isBadRequest());
+
+		verify(itemService, never()).update(any(), any(Item.class));
 	}
 
 	// Delete an item.
@@ -217,18 +642,87 @@ class ItemControllerIntegrationTests {
 	// Test the async process endpoint - just checking it returns 202 and calls the service.
 	@Test
 	void processItems_shouldReturnAcceptedAndTriggerAsyncProcessing() throws Exception {
+		ItemProcessingJob job = new ItemProcessingJob(2);
+		when(itemService.createProcessingJob()).thenReturn(job);
 		// The service's async method returns a CompletableFuture.
-		CompletableFuture<List<Item>> future = CompletableFuture.completedFuture(Arrays.asList(item1, item2));
-		when(itemService.processItemsAsync()).thenReturn(future);
+		CompletableFuture<ItemProcessingJob> future = CompletableFuture.completedFuture(job);
+		when(itemService.processItemsAsync(job)).thenReturn(future);
 
 		mockMvc.perform(get("/api/items/process"))
 				.andExpect(status().isAccepted()) // Expect 202 Accepted.
-				.andExpect(jsonPath("$.message", is("Item processing initiated asynchronously.")));
+				.andExpect(jsonPath("$.message", is("Item processing initiated asynchronously.")))
+				.andExpect(jsonPath("$.jobId", is(job.getId().toString())))
+				.andExpect(header().string("Location", "/api/items/process/" + job.getId()));
 
-		verify(itemService, times(1)).processItemsAsync();
+		verify(itemService, times(1)).processItemsAsync(job);
 
 		// Make sure our mocked future completes, otherwise the test might be flaky
 		// or hang if there's a whenComplete callback in the controller.
 		future.get(5, TimeUnit.SECONDS);
 	}
-}
\ No newline at end of file
+
+	// Job pool full: 503 straight away (never run the job on the request thread), and the job isn't left RUNNING.
+	@Test
+	void processItems_whenJobPoolIsFull_shouldReturnServiceUnavailable() throws Exception {
+		ItemProcessingJob job = new ItemProcessingJob(2);
+		TaskRejectedException rejected = new TaskRejectedException("Pool full");
+		when(itemService.createProcessingJob()).thenReturn(job);
+		when(itemService.processItemsAsync(job)).thenThrow(rejected);
+
+		mockMvc.perform(get("/api/items/process"))
+				.andExpect(status().isServiceUnavailable());
+
+		verify(itemService, times(1)).abandonProcessingJob(job, rejected);
+	}
+
+	// Polling a job gives its progress.
+	@Test
+	void getProcessingJob_whenJobExists_shouldReturnProgress() throws Exception {
+		ItemProcessingJob job = new ItemProcessingJob(10);
+		when(itemService.findProcessingJob(job.getId())).thenReturn(Optional.of(job));
+
+		mockMvc.perform(get("/api/items/process/" + job.getId()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.id", is(job.getId().toString())))
+				.andExpect(jsonPath("$.status", is("RUNNING")))
+				.andExpect(jsonPath("$.totalItems", is(10)))
+				.andExpect(jsonPath("$.processed", is(0)))
+				.andExpect(jsonPath("$.results").doesNotExist()); // Results are a separate call.
+	}
+
+	@Test
+	void getProcessingJob_whenJobUnknown_shouldReturnNotFound() throws Exception {
+		UUID jobId = UUID.randomUUID();
+		when(itemService.findProcessingJob(jobId)).thenReturn(Optional.empty());
+
+		mockMvc.perform(get("/api/items/process/" + jobId))
+				.andExpect(status().isNotFound());
+	}
+
+	// Results of a running job aren't ready yet.
+	@Test
+	void getProcessingJobResults_whenJobRunning_shouldReturnConflict() throws Exception {
+		ItemProcessingJob job = new ItemProcessingJob(10);
+		when(itemService.findProcessingJob(job.getId())).thenReturn(Optional.of(job));
+
+		mockMvc.perform(get("/api/items/process/" + job.getId() + "/results"))
+				.andExpect(status().isConflict());
+	}
+
+	// Results of a finished job: counts and failed ids, no entities.
+	@Test
+	void getProcessingJobResults_whenJobCompleted_shouldReturnSummary() throws Exception {
+		ItemProcessingJob job = mock(ItemProcessingJob.class);
+		UUID jobId = UUID.randomUUID();
+		when(job.getStatus()).thenReturn(ItemProcessingJob.Status.COMPLETED);
+		when(job.toSummary()).thenReturn(new ItemProcessingSummary(jobId, ItemProcessingJob.Status.COMPLETED,
+				1, 0, 0, 1, new long[]{2L}));
+		when(itemService.findProcessingJob(jobId)).thenReturn(Optional.of(job));
+
+		mockMvc.perform(get("/api/items/process/" + jobId + "/results"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.processed", is(1)))
+				.andExpect(jsonPath("$.failed", is(1)))
+				.andExpect(jsonPath("$.failedIds", contains(2)));
+	}
+}
@@ -0,0 +1,123 @@
+package com.siemens.internship.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.siemens.internship.config.RequestLoggingProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The filter on its own, reading back what it logged through a list appender.
+class RequestLoggingFilterTests {
+
+    private RequestLoggingProperties properties;
+    private RequestLoggingFilter filter;
+    private ListAppender<ILoggingEvent> logged;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RequestLoggingProperties();
+        properties.setDefaultSampleRate(0.0); // Ordinary requests are never sampled, unless a test says otherwise.
+        properties.setSlowRequestThresholdMs(10_000);
+        filter = new RequestLoggingFilter(properties);
+        logged = new ListAppender<>();
+        logged.start();
+        ((Logger) LoggerFactory.getLogger(RequestLoggingFilter.class)).addAppender(logged);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ((Logger) LoggerFactory.getLogger(RequestLoggingFilter.class)).detachAppender(logged);
+    }
+
+    // Sampling is per endpoint pattern: rate 1 always logs, rate 0 never does.
+    @Test
+    void doFilter_shouldSampleOrdinaryRequestsPerEndpoint() throws Exception {
+        properties.setSampleRates(Map.of("GET /api/items/{id}", 1.0));
+
+        filter.doFilter(request("/api/items/1", "/api/items/{id}"), new MockHttpServletResponse(), respondWith(200));
+        filter.doFilter(request("/api/items", "/api/items"), new MockHttpServletResponse(), respondWith(200));
+
+        assertEquals(1, logged.list.size(), "Only the endpoint sampled at 1.0 should be logged.");
+        ILoggingEvent event = logged.list.get(0);
+        assertEquals(Level.INFO, event.getLevel());
+        assertTrue(event.getFormattedMessage().contains("endpoint=\"GET /api/items/{id}\""));
+        assertTrue(event.getFormattedMessage().contains("status=200"));
+    }
+
+    // Slow requests are logged at WARN whatever the sample rate.
+    @Test
+    void doFilter_whenRequestIsSlow_shouldAlwaysLogWarn() throws Exception {
+        properties.setSlowRequestThresholdMs(20);
+        FilterChain slowChain = (request, response) -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        filter.doFilter(request("/api/items", "/api/items"), new MockHttpServletResponse(), slowChain);
+
+        assertEquals(1, logged.list.size());
+        assertEquals(Level.WARN, logged.list.get(0).getLevel());
+        assertTrue(logged.list.get(0).getFormattedMessage().contains("slow=true"));
+    }
+
+    // 5xx responses are logged at ERROR whatever the sample rate.
+    @Test
+    void doFilter_whenResponseIs5xx_shouldAlwaysLogError() throws Exception {
+        filter.doFilter(request("/api/items", "/api/items"), new MockHttpServletResponse(), respondWith(503));
+
+        assertEquals(1, logged.list.size());
+        assertEquals(Level.ERROR, logged.list.get(0).getLevel());
+        assertTrue(logged.list.get(0).getFormattedMessage().contains("status=503"));
+    }
+
+    // An exception escaping the chain counts as a 500, is logged, and still reaches the caller.
+    @Test
+    void doFilter_whenChainThrows_shouldLogErrorAndRethrow() {
+        FilterChain failingChain = (request, response) -> {
+            throw new ServletException("Simulated failure");
+        };
+
+        assertThrows(ServletException.class,
+                () -> filter.doFilter(request("/api/items", "/api/items"), new MockHttpServletResponse(), failingChain));
+
+        assertEquals(1, logged.list.size());
+        assertEquals(Level.ERROR, logged.list.get(0).getLevel());
+        assertTrue(logged.list.get(0).getFormattedMessage().contains("status=500"));
+        assertTrue(logged.list.get(0).getFormattedMessage().contains("Simulated failure"));
+    }
+
+    // 4xx is an ordinary (sampled) request, not an error.
+    @Test
+    void doFilter_whenResponseIs4xx_shouldOnlyBeSampled() throws Exception {
+        filter.doFilter(request("/api/items/99", "/api/items/{id}"), new MockHttpServletResponse(), respondWith(404));
+
+        assertTrue(logged.list.isEmpty());
+    }
+
+    private static MockHttpServletRequest request(String uri, String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern); // Normally set by Spring MVC.
+        return request;
+    }
+
+    private static FilterChain respondWith(int status) {
+        return (request, response) -> ((HttpServletResponse) response).setStatus(status);
+    }
+}
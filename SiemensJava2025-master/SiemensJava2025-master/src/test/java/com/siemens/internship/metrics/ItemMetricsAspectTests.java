@@ -0,0 +1,89 @@
+package com.siemens.internship.metrics;
+
+import com.siemens.internship.service.ItemService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// The aspect on its own, with a mocked join point standing in for an ItemService call.
+@ExtendWith(MockitoExtension.class)
+class ItemMetricsAspectTests {
+
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+
+    @Mock
+    private Signature signature;
+
+    private SimpleMeterRegistry meterRegistry; // In-memory registry, enough to read the meters back.
+
+    private ItemMetricsAspect aspect;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        aspect = new ItemMetricsAspect(meterRegistry);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.getDeclaringType()).thenReturn(ItemService.class);
+        when(signature.getName()).thenReturn("findById");
+    }
+
+    // Plain call: one successful timing, nothing left in flight, no errors.
+    @Test
+    void measure_whenCallSucceeds_shouldTimeItAsSuccess() throws Throwable {
+        when(joinPoint.proceed()).thenReturn("result");
+
+        assertEquals("result", aspect.measure(joinPoint));
+
+        assertEquals(1, meterRegistry.get("items.calls")
+                .tags("class", "ItemService", "method", "findById", "outcome", "success").timer().count());
+        assertEquals(0, inFlight());
+        assertNull(meterRegistry.find("items.errors").counter());
+    }
+
+    // Exception: rethrown as is, timed as an error and counted under its class name.
+    @Test
+    void measure_whenCallThrows_shouldCountErrorByExceptionType() throws Throwable {
+        IllegalStateException failure = new IllegalStateException("Simulated failure");
+        when(joinPoint.proceed()).thenThrow(failure);
+
+        assertSame(failure, assertThrows(IllegalStateException.class, () -> aspect.measure(joinPoint)));
+
+        assertEquals(1, meterRegistry.get("items.calls").tags("outcome", "error").timer().count());
+        assertEquals(1.0, meterRegistry.get("items.errors")
+                .tags("class", "ItemService", "method", "findById", "exception", "IllegalStateException").counter().count());
+        assertEquals(0, inFlight());
+    }
+
+    // A CompletableFuture is timed until it completes, and stays in flight until then.
+    @Test
+    void measure_whenFutureIsReturned_shouldRecordOnCompletion() throws Throwable {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        when(joinPoint.proceed()).thenReturn(future);
+
+        assertSame(future, aspect.measure(joinPoint));
+
+        assertEquals(1, inFlight(), "Still running until the future completes.");
+        assertNull(meterRegistry.find("items.calls").timer(), "Nothing timed yet.");
+
+        future.completeExceptionally(new IllegalArgumentException("Simulated async failure"));
+
+        assertEquals(0, inFlight());
+        assertEquals(1, meterRegistry.get("items.calls").tags("outcome", "error").timer().count());
+        assertEquals(1.0, meterRegistry.get("items.errors").tags("exception", "IllegalArgumentException").counter().count());
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("items.in.flight").tags("class", "ItemService", "method", "findById").gauge().value();
+    }
+}
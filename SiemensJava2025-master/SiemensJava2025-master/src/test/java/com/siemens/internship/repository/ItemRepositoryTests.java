@@ -0,0 +1,295 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The repository's hand-written JPQL against a real (H2) database. ItemServiceTests mocks the repository,
+ * so this is the only place the claim / compare-and-set statements (and the projection query) actually run.
+ * Every test runs in its own transaction that's rolled back at the end, unless it says otherwise.
+ */
+@DataJpaTest
+class ItemRepositoryTests {
+
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    // The application class comes along with its executor beans, and those want a MeterRegistry.
+    @TestConfiguration
+    static class MetricsConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Item persist(String name, ItemStatus status) {
+        return entityManager.persistAndFlush(new Item(name, "Desc", status, name.replace(' ', '.') + "@example.com"));
+    }
+
+    private Item persistClaimed(String name, UUID token, Instant expiresAt) {
+        Item item = new Item(name, "Desc", ItemStatus.NEW, name.replace(' ', '.') + "@example.com");
+        item.setClaimToken(token);
+        item.setClaimExpiresAt(expiresAt);
+        return entityManager.persistAndFlush(item);
+    }
+
+    // Bulk statements go around the persistence context, so read what's really in the table.
+    private Item reload(Long id) {
+        entityManager.clear();
+        return entityManager.find(Item.class, id);
+    }
+
+    // Another node holds one row of the chunk: we only get the rest, and findClaimedIds says which.
+    @Test
+    void claimIds_whenSomeRowsHeldByAnotherToken_shouldClaimOnlyTheFreeOnes() {
+        UUID otherNode = UUID.randomUUID();
+        UUID mine = UUID.randomUUID();
+        Instant now = Instant.now();
+        Item free1 = persist("Free Item 1", ItemStatus.NEW);
+        Item taken = persistClaimed("Taken Item", otherNode, now.plus(LEASE));
+        Item free2 = persist("Free Item 2", ItemStatus.NEW);
+        List<Long> ids = List.of(free1.getId(), taken.getId(), free2.getId());
+
+        int claimed = itemRepository.claimIds(ids, ItemStatus.NEW, mine, now.plus(LEASE), now);
+
+        assertEquals(2, claimed);
+        assertEquals(List.of(free1.getId(), free2.getId()), itemRepository.findClaimedIds(ids, mine));
+        assertEquals(otherNode, reload(taken.getId()).getClaimToken()); // Their lease is untouched.
+    }
+
+    // Rows in another status aren't ours to claim, even when nobody holds them.
+    @Test
+    void claimIds_whenStatusDiffers_shouldNotClaim() {
+        Item processed = persist("Done Item", ItemStatus.PROCESSED);
+        Instant now = Instant.now();
+
+        assertEquals(0, itemRepository.claimIds(List.of(processed.getId()), ItemStatus.NEW, UUID.randomUUID(), now.plus(LEASE), now));
+        assertNull(reload(processed.getId()).getClaimToken());
+    }
+
+    // A lease that ran out (its node died mid-run) is fair game.
+    @Test
+    void claimIds_whenOtherLeaseExpired_shouldTakeItOver() {
+        UUID deadNode = UUID.randomUUID();
+        UUID mine = UUID.randomUUID();
+        Instant now = Instant.now();
+        Item stale = persistClaimed("Stale Lease Item", deadNode, now.minusSeconds(1));
+
+        int claimed = itemRepository.claimIds(List.of(stale.getId()), ItemStatus.NEW, mine, now.plus(LEASE), now);
+
+        assertEquals(1, claimed);
+        Item reloaded = reload(stale.getId());
+        assertEquals(mine, reloaded.getClaimToken());
+        assertTrue(reloaded.getClaimExpiresAt().isAfter(now));
+    }
+
+    // The flip only touches rows still carrying our token: one whose claim was cleared (a PUT landed on it)
+    // is left with what the PUT wrote. The rows it does flip lose the claim and get a new version.
+    @Test
+    void updateStatusByIds_whenClaimWasCleared_shouldSkipThatRow() {
+        UUID mine = UUID.randomUUID();
+        Instant now = Instant.now();
+        Item kept = persist("Kept Item", ItemStatus.NEW);
+        Item edited = persist("Edited Item", ItemStatus.NEW);
+        List<Long> ids = List.of(kept.getId(), edited.getId());
+        assertEquals(2, itemRepository.claimIds(ids, ItemStatus.NEW, mine, now.plus(LEASE), now));
+        assertEquals(1, itemRepository.updateItem(edited.getId(), null, "Edited Item", "Changed", ItemStatus.PENDING, "edited@example.com"));
+
+        int flipped = itemRepository.updateStatusByIds(ids, ItemStatus.PROCESSED, mine);
+
+        assertEquals(1, flipped);
+        Item keptNow = reload(kept.getId());
+        assertEquals(ItemStatus.PROCESSED, keptNow.getStatus());
+        assertNull(keptNow.getClaimToken());
+        assertNull(keptNow.getClaimExpiresAt());
+        assertEquals(kept.getVersion() + 1, keptNow.getVersion());
+        Item editedNow = reload(edited.getId());
+        assertEquals(ItemStatus.PENDING, editedNow.getStatus()); // The PUT wins.
+        assertEquals("Changed", editedNow.getDescription());
+    }
+
+    // A token that never claimed the rows flips nothing.
+    @Test
+    void updateStatusByIds_withForeignToken_shouldNotTouchRows() {
+        UUID otherNode = UUID.randomUUID();
+        Item taken = persistClaimed("Taken Item", otherNode, Instant.now().plus(LEASE));
+
+        assertEquals(0, itemRepository.updateStatusByIds(List.of(taken.getId()), ItemStatus.PROCESSED, UUID.randomUUID()));
+        Item reloaded = reload(taken.getId());
+        assertEquals(ItemStatus.NEW, reloaded.getStatus());
+        assertEquals(otherNode, reloaded.getClaimToken());
+    }
+
+    // No expected version: plain last-write-wins, still bumps the version.
+    @Test
+    void updateItem_withoutVersion_shouldUpdateAndBumpVersion() {
+        Item item = persist("Plain Item", ItemStatus.NEW);
+
+        assertEquals(1, itemRepository.updateItem(item.getId(), null, "Renamed Item", "New desc", ItemStatus.PENDING, "renamed@example.com"));
+
+        Item reloaded = reload(item.getId());
+        assertEquals("Renamed Item", reloaded.getName());
+        assertEquals("New desc", reloaded.getDescription());
+        assertEquals(ItemStatus.PENDING, reloaded.getStatus());
+        assertEquals("renamed@example.com", reloaded.getEmail());
+        assertEquals(item.getVersion() + 1, reloaded.getVersion());
+    }
+
+    // Compare-and-set hit: the row is still at the version the client read.
+    @Test
+    void updateItem_withMatchingVersion_shouldUpdateAndBumpVersion() {
+        Item item = persist("Versioned Item", ItemStatus.NEW);
+
+        assertEquals(1, itemRepository.updateItem(item.getId(), item.getVersion(), "Versioned Item", "Changed", ItemStatus.NEW, "v@example.com"));
+
+        Item reloaded = reload(item.getId());
+        assertEquals("Changed", reloaded.getDescription());
+        assertEquals(item.getVersion() + 1, reloaded.getVersion());
+    }
+
+    // Compare-and-set miss: somebody got there first, the row is left exactly as it was.
+    @Test
+    void updateItem_withStaleVersion_shouldNotTouchRow() {
+        Item item = persist("Contended Item", ItemStatus.NEW);
+        assertEquals(1, itemRepository.updateItem(item.getId(), item.getVersion(), "Contended Item", "First writer", ItemStatus.NEW, "c@example.com"));
+
+        int updated = itemRepository.updateItem(item.getId(), item.getVersion(), "Contended Item", "Second writer", ItemStatus.NEW, "c@example.com");
+
+        assertEquals(0, updated);
+        Item reloaded = reload(item.getId());
+        assertEquals("First writer", reloaded.getDescription());
+        assertEquals(item.getVersion() + 1, reloaded.getVersion()); // Only the first write counted.
+    }
+
+    // Nothing there: 0 rows, whatever the version.
+    @Test
+    void updateItem_whenItemDoesNotExist_shouldUpdateNothing() {
+        assertEquals(0, itemRepository.updateItem(Long.MAX_VALUE, null, "Ghost Item", "Desc", ItemStatus.NEW, "ghost@example.com"));
+    }
+
+    // A PUT on a row a processing job has claimed drops the claim, so the job's flip can't undo the PUT.
+    @Test
+    void updateItem_onClaimedRow_shouldClearTheClaim() {
+        UUID job = UUID.randomUUID();
+        Item item = persistClaimed("Claimed Item", job, Instant.now().plus(LEASE));
+
+        assertEquals(1, itemRepository.updateItem(item.getId(), null, "Claimed Item", "Edited", ItemStatus.NEW, "claimed@example.com"));
+
+        Item reloaded = reload(item.getId());
+        assertNull(reloaded.getClaimToken());
+        assertNull(reloaded.getClaimExpiresAt());
+        assertEquals(0, itemRepository.updateStatusByIds(List.of(item.getId()), ItemStatus.PROCESSED, job));
+        assertEquals(ItemStatus.NEW, reload(item.getId()).getStatus());
+    }
+
+    // Only the asked-for columns come back, keyed and ordered the way they were asked for.
+    @Test
+    void findFieldsAfter_shouldSelectRequestedFieldsInOrder() {
+        Item item = persist("Projected Item", ItemStatus.PENDING);
+
+        List<Map<String, Object>> rows = itemRepository.findFieldsAfter(List.of("name", "id", "status"), null, item.getId() - 1, 10);
+
+        assertEquals(1, rows.size());
+        assertEquals(List.of("name", "id", "status"), new ArrayList<>(rows.get(0).keySet()));
+        assertEquals("Projected Item", rows.get(0).get("name"));
+        assertEquals(item.getId(), rows.get(0).get("id"));
+        assertEquals(ItemStatus.PENDING, rows.get(0).get("status")); // Converted back from the SMALLINT code.
+    }
+
+    // The status filter goes through ItemStatusConverter, so it matches the stored code, not the name or ordinal.
+    @Test
+    void findFieldsAfter_withStatus_shouldOnlyReturnThatStatus() {
+        Item fresh = persist("Fresh Item", ItemStatus.NEW);
+        Item done1 = persist("Done Item 1", ItemStatus.PROCESSED);
+        persist("Pending Item", ItemStatus.PENDING);
+        Item done2 = persist("Done Item 2", ItemStatus.PROCESSED);
+
+        List<Map<String, Object>> rows = itemRepository.findFieldsAfter(List.of("id", "status"), ItemStatus.PROCESSED, fresh.getId() - 1, 10);
+
+        assertEquals(List.of(done1.getId(), done2.getId()), rows.stream().map(row -> row.get("id")).toList());
+        rows.forEach(row -> assertEquals(ItemStatus.PROCESSED, row.get("status")));
+    }
+
+    // Keyset cursor: strictly after afterId, in id order, at most limit rows.
+    @Test
+    void findFieldsAfter_shouldPageByKeysetCursor() {
+        Item first = persist("Page Item 1", ItemStatus.NEW);
+        Item second = persist("Page Item 2", ItemStatus.NEW);
+        Item third = persist("Page Item 3", ItemStatus.NEW);
+
+        List<Map<String, Object>> firstPage = itemRepository.findFieldsAfter(List.of("id"), null, first.getId() - 1, 2);
+        List<Map<String, Object>> nextPage = itemRepository.findFieldsAfter(List.of("id"), null, second.getId(), 2);
+
+        assertEquals(List.of(first.getId(), second.getId()), firstPage.stream().map(row -> row.get("id")).toList());
+        assertEquals(List.of(third.getId()), nextPage.stream().map(row -> row.get("id")).toList());
+    }
+
+    // Real attribute, but not whitelisted: never turned into a query.
+    @Test
+    void findFieldsAfter_withFieldNotWhitelisted_shouldThrow() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> itemRepository.findFieldsAfter(List.of("id", "claimToken"), null, 0L, 10));
+        assertTrue(e.getMessage().contains("claimToken"));
+    }
+
+    // What processChunks relies on: a flip transaction that's rolled back leaves the rows as they were,
+    // claims included, so the item-by-item retry can still flip them with the same token.
+    // Needs real commits, so no test transaction here (and cleans up after itself).
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void updateStatusByIds_whenRolledBack_shouldKeepTheClaims() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        UUID mine = UUID.randomUUID();
+        Instant now = Instant.now();
+        List<Item> items = itemRepository.saveAll(List.of(
+                new Item("Rollback Item 1", "Desc", ItemStatus.NEW, "rb1@example.com"),
+                new Item("Rollback Item 2", "Desc", ItemStatus.NEW, "rb2@example.com")));
+        List<Long> ids = items.stream().map(Item::getId).toList();
+        try {
+            assertEquals(2, itemRepository.claimIds(ids, ItemStatus.NEW, mine, now.plus(LEASE), now));
+
+            Integer flipped = tx.execute(status -> {
+                int rows = itemRepository.updateStatusByIds(ids, ItemStatus.PROCESSED, mine);
+                status.setRollbackOnly();
+                return rows;
+            });
+
+            assertEquals(2, flipped);
+            assertEquals(ids, itemRepository.findClaimedIds(ids, mine));
+            itemRepository.findAllById(ids).forEach(item -> assertEquals(ItemStatus.NEW, item.getStatus()));
+            assertEquals(2, itemRepository.updateStatusByIds(ids, ItemStatus.PROCESSED, mine)); // Retry still works.
+        } finally {
+            itemRepository.deleteAllById(ids);
+        }
+    }
+}
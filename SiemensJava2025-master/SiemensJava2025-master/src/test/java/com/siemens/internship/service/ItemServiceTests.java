@@ -1,24 +1,43 @@
 package com.siemens.internship.service; // Ensure this package is correct for your tests
 
+import com.siemens.internship.config.ItemLookupProperties;
+import com.siemens.internship.config.ItemProcessingProperties;
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
 import com.siemens.internship.repository.ItemRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor; // For a test executor
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
 
-import java.util.Arrays;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class) // This gets Mockito ready for us.
@@ -27,10 +46,20 @@ class ItemServiceTests {
     @Mock // We'll mock the ItemRepository for these service unit tests.
     private ItemRepository itemRepository;
 
-    // Need an Executor for testing the async logic. A real one is fine for tests.
-    private Executor taskExecutor;
+    // Need an Executor for the chunk workers. A real one is fine for tests.
+    private Executor workerExecutor;
 
-    @InjectMocks // This injects the mocked itemRepository and taskExecutor into itemService.
+    private ItemProcessingProperties processingProperties;
+
+    private ItemProcessingJob job; // Progress tracker handed to processItemsAsync.
+
+    private CacheManager cacheManager; // Plain map-backed cache, enough to check evictions.
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    // Built by hand in setUp(): the constructor needs a real executor and cache manager,
+    // @InjectMocks would hand it nulls.
     private ItemService itemService;
 
     @BeforeEach
@@ -44,107 +73,628 @@ class ItemServiceTests {
         executor.setQueueCapacity(10);
         executor.setThreadNamePrefix("TestItemSvcProc-");
         executor.initialize();
-        taskExecutor = executor;
+        workerExecutor = executor;
+
+        // Tiny chunks so a couple of items are enough to exercise the chunk loop.
+        processingProperties = new ItemProcessingProperties();
+        processingProperties.setChunkSize(2);
+        processingProperties.setRetryBackoff(Duration.ofMillis(1)); // Don't make the retry tests sleep.
+        cacheManager = new ConcurrentMapCacheManager(ItemService.ITEM_CACHE);
+        // No real database here, the transaction manager just hands out statuses (and lets us count transactions).
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        // Wide window but small batches, so the lookup test's concurrent calls reliably end up in one batch.
+        ItemLookupProperties lookupProperties = new ItemLookupProperties();
+        lookupProperties.setBatchWindow(Duration.ofSeconds(1));
+        lookupProperties.setMaxBatchSize(3);
+        itemService = new ItemService(itemRepository, workerExecutor, processingProperties, new ItemProcessingJobRegistry(),
+                cacheManager, transactionManager, new ItemBatchLoader(itemRepository, lookupProperties),
+                new ItemIdFilter(itemRepository, lookupProperties)); // Id filter is off by default, so every id is "maybe".
+        job = new ItemProcessingJob(2);
 
-        // If @InjectMocks doesn't pick up 'taskExecutor' by name,
-        // or if the service constructor has @Qualifier, you might need to create itemService manually:
-        itemService = new ItemService(itemRepository, taskExecutor);
+        // By default no status has anything pending. Tests stub the ranges they care about on top of this
+        // (lenient, so the job also reading the other statuses isn't flagged as a stubbing mismatch).
+        lenient().when(itemRepository.findIdsByStatusAfter(any(ItemStatus.class), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of());
+        // And no other node competes for the items, so every claim gets the whole chunk.
+        lenient().when(itemRepository.claimIds(anyCollection(), any(ItemStatus.class), any(UUID.class), any(Instant.class), any(Instant.class)))
+                .thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).size());
     }
 
-    // Test the main async path: all items get processed.
+    // Delete is one statement, the row count decides found / not found.
     @Test
-    void processItemsAsync_shouldProcessAllItems() throws Exception {
-        Item item1 = new Item(1L, "Item 1", "Desc 1", "NEW", "email1@test.com");
-        Item item2 = new Item(2L, "Item 2", "Desc 2", "NEW", "email2@test.com");
-
-        // What our mocked repo should do:
-        when(itemRepository.findAllItemIds()).thenReturn(Arrays.asList(1L, 2L));
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(item1));
-        when(itemRepository.findById(2L)).thenReturn(Optional.of(item2));
-        // When 'save' is called, pretend it worked and return the item (maybe with status updated).
-        when(itemRepository.save(any(Item.class))).thenAnswer(invocation -> {
-            Item itemToSave = invocation.getArgument(0);
-            // Simulate the status update that would happen in real processing.
-            itemToSave.setStatus("PROCESSED");
-            return itemToSave;
+    void deleteById_whenItemExists_shouldDeleteWithSingleStatement() {
+        when(itemRepository.deleteItemById(1L)).thenReturn(1);
+
+        assertTrue(itemService.deleteById(1L));
+
+        verify(itemRepository, never()).existsById(any());
+        verify(itemRepository, never()).deleteById(any());
+    }
+
+    @Test
+    void deleteById_whenItemDoesNotExist_shouldReturnFalse() {
+        when(itemRepository.deleteItemById(99L)).thenReturn(0);
+
+        assertFalse(itemService.deleteById(99L));
+    }
+
+    // With the id filter built, ids that were never there are answered without touching the database,
+    // and newly saved ids are added to it.
+    @Test
+    void idFilter_whenEnabled_shouldSkipQueriesForUnknownIds() {
+        ItemLookupProperties lookupProperties = new ItemLookupProperties();
+        lookupProperties.getIdFilter().setEnabled(true);
+        ItemIdFilter idFilter = new ItemIdFilter(itemRepository, lookupProperties);
+        ItemService filteredService = new ItemService(itemRepository, workerExecutor, processingProperties, new ItemProcessingJobRegistry(),
+                cacheManager, transactionManager, new ItemBatchLoader(itemRepository, lookupProperties), idFilter);
+        when(itemRepository.count()).thenReturn(3L);
+        when(itemRepository.findIdsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L, 3L));
+        idFilter.rebuild();
+        Item newItem = new Item(100L, "Item 100", "Desc", ItemStatus.NEW, "e@test.com");
+        when(itemRepository.save(newItem)).thenReturn(newItem);
+
+        assertTrue(filteredService.findById(99L).isEmpty());
+        assertFalse(filteredService.deleteById(99L));
+        assertEquals(List.of(99L), filteredService.findAllByIds(List.of(99L)).missingIds());
+        filteredService.save(newItem);
+
+        verify(itemRepository, never()).findAllById(anyCollection());
+        verify(itemRepository, never()).findById(any());
+        verify(itemRepository, never()).deleteItemById(any());
+        assertTrue(idFilter.mightContain(1L));
+        assertTrue(idFilter.mightContain(100L));
+    }
+
+    // Concurrent misses for different ids are answered by one IN query, each caller gets its own item.
+    @Test
+    void findById_concurrentLookups_shouldShareOneQuery() throws Exception {
+        when(itemRepository.findAllById(anyCollection())).thenAnswer(invocation -> {
+            List<Item> items = new ArrayList<>();
+            for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+                if (id != 3L) { // Item 3 doesn't exist.
+                    items.add(new Item(id, "Item " + id, "Desc", ItemStatus.NEW, "e@test.com"));
+                }
+            }
+            return items;
+        });
+
+        List<CompletableFuture<Optional<Item>>> lookups = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            long itemId = id;
+            lookups.add(CompletableFuture.supplyAsync(() -> itemService.findById(itemId)));
+        }
+
+        assertEquals("Item 1", lookups.get(0).get(5, TimeUnit.SECONDS).orElseThrow().getName());
+        assertEquals("Item 2", lookups.get(1).get(5, TimeUnit.SECONDS).orElseThrow().getName());
+        assertTrue(lookups.get(2).get(5, TimeUnit.SECONDS).isEmpty());
+        verify(itemRepository, times(1)).findAllById(anyCollection());
+        verify(itemRepository, never()).findById(any());
+    }
+
+    // Same id, many callers at once: only the first one queries, the others wait for its result.
+    @Test
+    void itemBatchLoader_concurrentLookupsForSameId_shouldShareOneLoad() throws Exception {
+        ItemLookupProperties noBatching = new ItemLookupProperties();
+        noBatching.setBatchWindow(Duration.ZERO); // Single-flight has to work without the batch window too.
+        ItemBatchLoader loader = new ItemBatchLoader(itemRepository, noBatching);
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch releaseQuery = new CountDownLatch(1);
+        Item item = new Item(1L, "Hot item", "Desc", ItemStatus.NEW, "hot@test.com");
+        when(itemRepository.findById(1L)).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            releaseQuery.await(5, TimeUnit.SECONDS); // Hold the "SELECT" open while the others pile up.
+            return Optional.of(item);
         });
 
+        CompletableFuture<Optional<Item>> first = CompletableFuture.supplyAsync(() -> loader.load(1L, itemCache()));
+        assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<Optional<Item>>> others = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            others.add(CompletableFuture.supplyAsync(() -> loader.load(1L, itemCache())));
+        }
+        Thread.sleep(100); // Let them find the load in flight.
+        releaseQuery.countDown();
+
+        assertSame(item, first.get(5, TimeUnit.SECONDS).orElseThrow());
+        for (CompletableFuture<Optional<Item>> other : others) {
+            assertSame(item, other.get(5, TimeUnit.SECONDS).orElseThrow());
+        }
+        verify(itemRepository, times(1)).findById(1L);
+    }
+
+    // A slow batch query must not hold up the next window: the timer only closes windows, queries run elsewhere.
+    @Test
+    void itemBatchLoader_whenBatchQueryIsSlow_shouldStillServeNextWindow() throws Exception {
+        ItemLookupProperties shortWindow = new ItemLookupProperties();
+        shortWindow.setBatchWindow(Duration.ofMillis(20));
+        ItemBatchLoader loader = new ItemBatchLoader(itemRepository, shortWindow);
+        CountDownLatch slowQueryStarted = new CountDownLatch(1);
+        CountDownLatch releaseSlowQuery = new CountDownLatch(1);
+        when(itemRepository.findAllById(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            if (ids.contains(1L)) {
+                slowQueryStarted.countDown();
+                releaseSlowQuery.await(5, TimeUnit.SECONDS);
+            }
+            return ids.stream().map(id -> new Item(id, "Item " + id, "Desc", ItemStatus.NEW, "e@test.com")).toList();
+        });
+
+        CompletableFuture<Optional<Item>> slow = CompletableFuture.supplyAsync(() -> loader.load(1L, itemCache()));
+        assertTrue(slowQueryStarted.await(5, TimeUnit.SECONDS));
+        Optional<Item> fast = CompletableFuture.supplyAsync(() -> loader.load(2L, itemCache())).get(2, TimeUnit.SECONDS);
+        releaseSlowQuery.countDown();
+
+        assertEquals("Item 2", fast.orElseThrow().getName());
+        assertEquals("Item 1", slow.get(5, TimeUnit.SECONDS).orElseThrow().getName());
+        loader.shutdown();
+    }
+
+    // After shutdown there's no timer to close a window, the lookup has to be answered anyway.
+    @Test
+    void itemBatchLoader_afterShutdown_shouldStillAnswerLookups() throws Exception {
+        ItemLookupProperties lookupProperties = new ItemLookupProperties();
+        ItemBatchLoader loader = new ItemBatchLoader(itemRepository, lookupProperties);
+        loader.shutdown();
+        when(itemRepository.findAllById(anyCollection())).thenReturn(List.of());
+
+        assertTrue(CompletableFuture.supplyAsync(() -> loader.load(5L, itemCache())).get(5, TimeUnit.SECONDS).isEmpty());
+    }
+
+    private Cache itemCache() {
+        return cacheManager.getCache(ItemService.ITEM_CACHE);
+    }
+
+    // Service whose loader queries right away (no batch window), so a test can hold "the SELECT" open.
+    private ItemService serviceWithoutBatching() {
+        ItemLookupProperties noBatching = new ItemLookupProperties();
+        noBatching.setBatchWindow(Duration.ZERO);
+        return new ItemService(itemRepository, workerExecutor, processingProperties, new ItemProcessingJobRegistry(),
+                cacheManager, transactionManager, new ItemBatchLoader(itemRepository, noBatching),
+                new ItemIdFilter(itemRepository, noBatching));
+    }
+
+    // A PUT commits while a load that read the old row is still running: the old row must not be cached,
+    // and a read after the PUT must not ride along on that old load.
+    @Test
+    void findById_whenUpdatedDuringLoad_shouldNotCacheStaleItemNorShareOldLoad() throws Exception {
+        ItemService service = serviceWithoutBatching();
+        Item before = new Item(1L, "Old name", "Desc", ItemStatus.NEW, "e@test.com");
+        Item after = new Item(1L, "New name", "Desc", ItemStatus.NEW, "e@test.com");
+        CountDownLatch oldQueryStarted = new CountDownLatch(1);
+        CountDownLatch releaseOldQuery = new CountDownLatch(1);
+        AtomicInteger queries = new AtomicInteger();
+        when(itemRepository.findById(1L)).thenAnswer(invocation -> {
+            if (queries.incrementAndGet() == 1) {
+                oldQueryStarted.countDown();
+                releaseOldQuery.await(5, TimeUnit.SECONDS); // Read before the PUT, answers after it.
+                return Optional.of(before);
+            }
+            return Optional.of(after);
+        });
+        when(itemRepository.updateItem(eq(1L), any(), any(), any(), any(), any())).thenReturn(1);
+
+        CompletableFuture<Optional<Item>> oldRead = CompletableFuture.supplyAsync(() -> service.findById(1L));
+        assertTrue(oldQueryStarted.await(5, TimeUnit.SECONDS));
+        service.update(1L, new Item("New name", "Desc", ItemStatus.NEW, "e@test.com"));
+        Optional<Item> readAfterPut = service.findById(1L);
+        releaseOldQuery.countDown();
+
+        assertEquals("New name", readAfterPut.orElseThrow().getName()); // Fresh load, not the one in flight.
+        assertEquals("Old name", oldRead.get(5, TimeUnit.SECONDS).orElseThrow().getName()); // Still answered...
+        assertSame(after, itemCache().get(1L, Item.class)); // ...but never cached.
+        assertEquals(2, queries.get());
+    }
+
+    // Same for a DELETE: the deleted item must not come back into the cache from a load that was in flight.
+    @Test
+    void findById_whenDeletedDuringLoad_shouldNotCacheDeletedItem() throws Exception {
+        ItemService service = serviceWithoutBatching();
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch releaseQuery = new CountDownLatch(1);
+        when(itemRepository.findById(1L)).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            releaseQuery.await(5, TimeUnit.SECONDS);
+            return Optional.of(new Item(1L, "Doomed item", "Desc", ItemStatus.NEW, "e@test.com"));
+        });
+        when(itemRepository.deleteItemById(1L)).thenReturn(1);
+
+        CompletableFuture<Optional<Item>> read = CompletableFuture.supplyAsync(() -> service.findById(1L));
+        assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+        assertTrue(service.deleteById(1L));
+        releaseQuery.countDown();
+
+        assertTrue(read.get(5, TimeUnit.SECONDS).isPresent());
+        assertNull(itemCache().get(1L));
+    }
+
+    // The bulk lookup caches what it loads too, so it has to respect the same invalidation.
+    @Test
+    void findAllByIds_whenDeletedDuringLoad_shouldNotCacheDeletedItem() throws Exception {
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch releaseQuery = new CountDownLatch(1);
+        when(itemRepository.findAllById(anyCollection())).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            releaseQuery.await(5, TimeUnit.SECONDS);
+            return List.of(new Item(1L, "Doomed item", "Desc", ItemStatus.NEW, "e@test.com"));
+        });
+        when(itemRepository.deleteItemById(1L)).thenReturn(1);
+
+        CompletableFuture<ItemLookupResult> lookup = CompletableFuture.supplyAsync(() -> itemService.findAllByIds(List.of(1L)));
+        assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+        assertTrue(itemService.deleteById(1L));
+        releaseQuery.countDown();
+
+        assertEquals(1, lookup.get(5, TimeUnit.SECONDS).items().size());
+        assertNull(itemCache().get(1L));
+    }
+
+    // Lookup: cached ids aren't queried, the rest goes in IN lists of at most LOOKUP_IN_LIST_SIZE.
+    @Test
+    void findAllByIds_shouldUseCacheAndSplitInLists() {
+        Item cachedItem = new Item(1L, "Item 1", "Desc 1", ItemStatus.NEW, "email1@test.com");
+        cacheManager.getCache(ItemService.ITEM_CACHE).put(1L, cachedItem);
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= ItemService.LOOKUP_IN_LIST_SIZE + 2; id++) { // Id 1 is cached, so one more than fits in one IN list.
+            ids.add(id);
+        }
+        ids.add(2L); // Duplicate, only looked up once.
+        when(itemRepository.findAllById(anyCollection())).thenAnswer(invocation -> {
+            List<Item> items = new ArrayList<>();
+            for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+                if (id != 3L) { // Item 3 doesn't exist.
+                    items.add(new Item(id, "Item " + id, "Desc", ItemStatus.NEW, "e@test.com"));
+                }
+            }
+            return items;
+        });
+
+        ItemLookupResult result = itemService.findAllByIds(ids);
+
+        assertEquals(ItemService.LOOKUP_IN_LIST_SIZE + 1, result.items().size());
+        assertSame(cachedItem, result.items().get(0));
+        assertEquals(2L, result.items().get(1).getId()); // Request order.
+        assertEquals(List.of(3L), result.missingIds());
+        verify(itemRepository, times(2)).findAllById(anyCollection());
+        assertNotNull(cacheManager.getCache(ItemService.ITEM_CACHE).get(2L)); // Loaded ones are cached now.
+    }
+
+    // Versioned update: one compare-and-set UPDATE, and the result carries the next version.
+    @Test
+    void update_withCurrentVersion_shouldUpdateAndBumpVersion() {
+        Item details = new Item(null, "Renamed", "Desc", ItemStatus.PENDING, "r@example.com");
+        details.setVersion(4L);
+        when(itemRepository.updateItem(1L, 4L, "Renamed", "Desc", ItemStatus.PENDING, "r@example.com")).thenReturn(1);
+
+        Item updated = itemService.update(1L, details).orElseThrow();
+
+        assertEquals(1L, updated.getId());
+        assertEquals(5L, updated.getVersion());
+        verify(itemRepository, never()).existsById(any()); // No extra query on the happy path.
+        assertSame(updated, cacheManager.getCache(ItemService.ITEM_CACHE).get(1L).get()); // Write-through.
+    }
+
+    // Unversioned update (what every old client sends): still exactly one statement, no version read back.
+    @Test
+    void update_withoutVersion_shouldUseSingleStatementAndDropCachedCopy() {
+        Cache cache = cacheManager.getCache(ItemService.ITEM_CACHE);
+        cache.put(1L, new Item(1L, "Old name", "Desc", ItemStatus.NEW, "r@example.com"));
+        Item details = new Item(null, "Renamed", "Desc", ItemStatus.PENDING, "r@example.com");
+        when(itemRepository.updateItem(1L, null, "Renamed", "Desc", ItemStatus.PENDING, "r@example.com")).thenReturn(1);
+
+        Item updated = itemService.update(1L, details).orElseThrow();
+
+        assertEquals("Renamed", updated.getName());
+        assertNull(updated.getVersion(), "Unknown without another query, so none is reported.");
+        assertNull(cache.get(1L), "The cached copy is stale now.");
+        verify(itemRepository, times(1)).updateItem(any(), any(), any(), any(), any(), any());
+        verifyNoMoreInteractions(itemRepository);
+    }
+
+    // No status in the PUT: back to NEW, never NULL (NULL would drop the item out of every processing run).
+    @Test
+    void update_withoutStatus_shouldDefaultToNew() {
+        Item details = new Item(null, "Renamed", "Desc", null, "r@example.com");
+        details.setVersion(4L);
+        when(itemRepository.updateItem(1L, 4L, "Renamed", "Desc", ItemStatus.NEW, "r@example.com")).thenReturn(1);
+
+        Item updated = itemService.update(1L, details).orElseThrow();
+
+        assertEquals(ItemStatus.NEW, updated.getStatus());
+    }
+
+    // Stale version: the item is there but moved on, that's a conflict, not a 404.
+    @Test
+    void update_withStaleVersion_shouldThrowConflict() {
+        Item details = new Item(null, "Renamed", "Desc", ItemStatus.PENDING, "r@example.com");
+        details.setVersion(4L);
+        when(itemRepository.updateItem(eq(1L), eq(4L), any(), any(), any(), any())).thenReturn(0);
+        when(itemRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> itemService.update(1L, details));
+    }
+
+    // Test the main async path: all items get processed with one UPDATE for the chunk.
+    @Test
+    void processItemsAsync_shouldProcessAllItems() throws Exception {
+        // What our mocked repo should do: one full chunk of ids, then nothing after id 2.
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), eq(2L), any(Pageable.class))).thenReturn(List.of());
+        when(itemRepository.updateStatusByIds(List.of(1L, 2L), ItemStatus.PROCESSED, job.getId())).thenReturn(2);
+
         // Call the async method.
-        CompletableFuture<List<Item>> futureResult = itemService.processItemsAsync();
+        CompletableFuture<ItemProcessingJob> futureResult = itemService.processItemsAsync(job);
         // Wait for it to finish (with a timeout, just in case).
-        List<Item> processedItems = futureResult.get(10, TimeUnit.SECONDS);
+        ItemProcessingJob finishedJob = futureResult.get(10, TimeUnit.SECONDS);
 
-        assertNotNull(processedItems);
-        assertEquals(2, processedItems.size(), "Should have processed two items.");
-        // Check if all items in the result list actually have "PROCESSED" status.
-        assertTrue(processedItems.stream().allMatch(item -> "PROCESSED".equals(item.getStatus())), "All items should be PROCESSED.");
+        assertSame(job, finishedJob);
+        assertEquals(ItemProcessingJob.Status.COMPLETED, job.getStatus());
+        assertEquals(2, job.getProcessed(), "Should have processed two items.");
+        assertEquals(0, job.getFailed());
+        assertEquals(0, job.toSummary().failedIds().length);
 
-        // Verify repo calls.
-        verify(itemRepository, times(1)).findById(1L);
-        verify(itemRepository, times(1)).findById(2L);
-        verify(itemRepository, times(2)).save(any(Item.class)); // Save called for each.
+        // Verify repo calls: one bulk update, no entity loads or per-item round trips.
+        verify(itemRepository, times(1)).updateStatusByIds(anyCollection(), eq(ItemStatus.PROCESSED), eq(job.getId()));
+        verify(itemRepository, never()).findById(any());
+        verify(itemRepository, never()).save(any(Item.class));
+    }
+
+    // The bulk UPDATE doesn't go through the cache annotations, so the job has to drop stale entries itself.
+    @Test
+    void processItemsAsync_shouldEvictProcessedItemsFromCache() throws Exception {
+        Cache cache = cacheManager.getCache(ItemService.ITEM_CACHE);
+        cache.put(1L, new Item(1L, "Item 1", "Desc 1", ItemStatus.NEW, "email1@test.com"));
+        cache.put(3L, new Item(3L, "Item 3", "Desc 3", ItemStatus.NEW, "email3@test.com")); // Not in this run.
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), eq(2L), any(Pageable.class))).thenReturn(List.of());
+        when(itemRepository.updateStatusByIds(List.of(1L, 2L), ItemStatus.PROCESSED, job.getId())).thenReturn(2);
+
+        itemService.processItemsAsync(job).get(5, TimeUnit.SECONDS);
+
+        assertNull(cache.get(1L), "Processed item should be evicted.");
+        assertNotNull(cache.get(3L), "Untouched items stay cached.");
+    }
+
+    // Several chunks: one keyset read and one update per chunk, and we stop on the short one.
+    @Test
+    void processItemsAsync_shouldWalkTableInChunks() throws Exception {
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), eq(2L), any(Pageable.class))).thenReturn(List.of(3L));
+        when(itemRepository.updateStatusByIds(List.of(1L, 2L), ItemStatus.PROCESSED, job.getId())).thenReturn(2);
+        when(itemRepository.updateStatusByIds(List.of(3L), ItemStatus.PROCESSED, job.getId())).thenReturn(1);
+
+        itemService.processItemsAsync(job).get(5, TimeUnit.SECONDS);
+
+        assertEquals(3, job.getProcessed());
+        verify(itemRepository, times(2)).findIdsByStatusAfter(eq(ItemStatus.NEW), anyLong(), any(Pageable.class)); // No extra query after the short chunk.
+        verify(itemRepository, times(2)).updateStatusByIds(anyCollection(), eq(ItemStatus.PROCESSED), eq(job.getId()));
+    }
+
+    // Commit interval 2: two chunks, two UPDATEs, but only one transaction.
+    @Test
+    void processItemsAsync_withCommitInterval_shouldCommitChunksTogether() throws Exception {
+        processingProperties.setCommitInterval(2);
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), eq(2L), any(Pageable.class))).thenReturn(List.of(3L));
+        when(itemRepository.updateStatusByIds(List.of(1L, 2L), ItemStatus.PROCESSED, job.getId())).thenReturn(2);
+        when(itemRepository.updateStatusByIds(List.of(3L), ItemStatus.PROCESSED, job.getId())).thenReturn(1);
+
+        itemService.processItemsAsync(job).get(5, TimeUnit.SECONDS);
+
+        assertEquals(3, job.getProcessed());
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager, times(1)).commit(any());
+        verify(transactionManager, never()).rollback(any());
+    }
+
+    // Lots of chunks: nothing gets rejected or dropped, and we never go past the in-flight window.
+    @Test
+    void processItemsAsync_shouldBoundChunksInFlight() throws Exception {
+        processingProperties.setMaxInFlightChunks(2);
+        // 20 full chunks of 2 ids (1..40), then an empty one.
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(1);
+            return afterId >= 40 ? List.of() : List.of(afterId + 1, afterId + 2);
+        });
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(itemRepository.updateStatusByIds(anyCollection(), eq(ItemStatus.PROCESSED), eq(job.getId()))).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(5); // Give the chunks a chance to overlap.
+            running.decrementAndGet();
+            return invocation.<Collection<Long>>getArgument(0).size();
+        });
+
+        itemService.processItemsAsync(job).get(10, TimeUnit.SECONDS);
+
+        assertEquals(40, job.getProcessed(), "Every item should be processed, none dropped.");
+        assertTrue(maxRunning.get() <= 2, "Never more than 2 chunks in flight, saw " + maxRunning.get());
+        verify(itemRepository, times(20)).updateStatusByIds(anyCollection(), eq(ItemStatus.PROCESSED), eq(job.getId()));
+    }
+
+    // More jobs at once than the job pool has core threads: the coordinators all block waiting for their chunks,
+    // which must still get a worker thread (they used to queue behind the coordinators on the same pool, forever).
+    @Test
+    void processItemsAsync_withMoreConcurrentJobsThanCorePoolThreads_shouldFinishEveryJob() throws Exception {
+        ThreadPoolTaskExecutor jobExecutor = new ThreadPoolTaskExecutor(); // Stands in for "taskExecutor".
+        jobExecutor.setCorePoolSize(2);
+        jobExecutor.setMaxPoolSize(4);
+        jobExecutor.setQueueCapacity(25);
+        jobExecutor.setThreadNamePrefix("TestItemSvcJob-");
+        jobExecutor.initialize();
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(1);
+            return afterId >= 6 ? List.of() : List.of(afterId + 1, afterId + 2);
+        });
+        when(itemRepository.updateStatusByIds(anyCollection(), eq(ItemStatus.PROCESSED), any(UUID.class))).thenAnswer(invocation -> {
+            Thread.sleep(10); // Slow enough that every coordinator is parked on its in-flight window.
+            return invocation.<Collection<Long>>getArgument(0).size();
+        });
+
+        List<ItemProcessingJob> jobs = new ArrayList<>();
+        List<CompletableFuture<ItemProcessingJob>> runs = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ItemProcessingJob concurrentJob = new ItemProcessingJob(6);
+            jobs.add(concurrentJob);
+            runs.add(CompletableFuture.supplyAsync(() -> itemService.processItemsAsync(concurrentJob), jobExecutor)
+                    .thenCompose(run -> run));
+        }
+
+        CompletableFuture.allOf(runs.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        for (ItemProcessingJob concurrentJob : jobs) {
+            assertEquals(ItemProcessingJob.Status.COMPLETED, concurrentJob.getStatus());
+            assertEquals(6, concurrentJob.getProcessed());
+        }
+        jobExecutor.shutdown();
+    }
+
+    // A lock timeout on the bulk update is retried (with backoff) instead of degrading to item by item.
+    @Test
+    void processItemsAsync_whenUpdateHitsTransientFailure_shouldRetryChunk() throws Exception {
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), eq(2L), any(Pageable.class))).thenReturn(List.of());
+        when(itemRepository.updateStatusByIds(List.of(1L, 2L), ItemStatus.PROCESSED, job.getId()))
+                .thenThrow(new CannotAcquireLockException("Simulated lock timeout"))
+                .thenReturn(2);
+
+        itemService.processItemsAsync(job).get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, job.getProcessed());
+        assertEquals(0, job.getFailed());
+        verify(itemRepository, times(2)).updateStatusByIds(List.of(1L, 2L), ItemStatus.PROCESSED, job.getId());
+        verify(itemRepository, never()).updateStatusByIds(eq(List.of(1L)), any(), any()); // Never fell back.
     }
 
     // Test case: one item is missing, others should still process.
     @Test
     void processItemsAsync_whenItemNotFound_shouldSkipAndProcessOthers() throws Exception {
-        Item item1 = new Item(1L, "Item 1", "Desc 1", "NEW", "email1@test.com");
-        // Item with ID 2 will not be found by the repo.
-
-        when(itemRepository.findAllItemIds()).thenReturn(Arrays.asList(1L, 2L));
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(item1));
-        when(itemRepository.findById(2L)).thenReturn(Optional.empty()); // Uh oh, item 2 is gone!
-        when(itemRepository.save(any(Item.class))).thenAnswer(invocation -> { // Save for item1
-            Item itemToSave = invocation.getArgument(0);
-            itemToSave.setStatus("PROCESSED");
-            return itemToSave;
+        // Item 2 gets deleted between reading the ids and the update.
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), eq(2L), any(Pageable.class))).thenReturn(List.of());
+        // Only item 1 is still in the table, so only its row gets updated.
+        when(itemRepository.updateStatusByIds(anyCollection(), eq(ItemStatus.PROCESSED), eq(job.getId()))).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return (int) ids.stream().filter(id -> id == 1L).count();
         });
 
-        CompletableFuture<List<Item>> futureResult = itemService.processItemsAsync();
-        List<Item> processedItems = futureResult.get(5, TimeUnit.SECONDS);
+        itemService.processItemsAsync(job).get(5, TimeUnit.SECONDS);
 
-        assertNotNull(processedItems);
-        assertEquals(1, processedItems.size(), "Only item1 should be in the processed list.");
-        assertEquals(1L, processedItems.get(0).getId());
-        assertEquals("PROCESSED", processedItems.get(0).getStatus());
+        assertEquals(1, job.getProcessed(), "Only item1 should be processed.");
+        assertEquals(1, job.getSkipped(), "Item2 was gone, that's a skip not a failure.");
+        assertEquals(0, job.getConflicts());
+        assertEquals(0, job.getFailed());
 
-        // Check repo calls. findById called for both, save only for item1.
-        verify(itemRepository, times(1)).findById(1L);
-        verify(itemRepository, times(1)).findById(2L);
-        verify(itemRepository, times(1)).save(any(Item.class));
+        // Bulk update for the chunk, then one check per item to find the missing one.
+        verify(itemRepository, times(1)).updateStatusByIds(List.of(1L, 2L), ItemStatus.PROCESSED, job.getId());
+        verify(itemRepository, times(1)).updateStatusByIds(List.of(1L), ItemStatus.PROCESSED, job.getId());
+        verify(itemRepository, times(1)).updateStatusByIds(List.of(2L), ItemStatus.PROCESSED, job.getId());
+    }
+
+    // Item 2 got a PUT after the job claimed it: the update dropped the claim, so the job leaves it alone
+    // and reports a conflict instead of overwriting the new status.
+    @Test
+    void processItemsAsync_whenItemUpdatedAfterClaim_shouldCountConflictAndNotOverwrite() throws Exception {
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), eq(2L), any(Pageable.class))).thenReturn(List.of());
+        // Item 2 no longer carries our claim token, so only item 1's row matches.
+        when(itemRepository.updateStatusByIds(anyCollection(), eq(ItemStatus.PROCESSED), eq(job.getId()))).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return (int) ids.stream().filter(id -> id == 1L).count();
+        });
+        when(itemRepository.existsById(2L)).thenReturn(true); // Still there, just changed.
+
+        itemService.processItemsAsync(job).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, job.getProcessed());
+        assertEquals(1, job.getConflicts());
+        assertEquals(0, job.getSkipped());
+        assertEquals(1, job.toSummary().conflicts());
     }
 
-    // Test case: DB save fails for one item, others should still go through.
+    // Test case: DB update fails for one item, others should still go through.
     @Test
     void processItemsAsync_whenSaveFailsForItem_shouldHandleAndProcessOthers() throws Exception {
-        Item item1 = new Item(1L, "Item 1", "Desc 1", "NEW", "email1@test.com");
-        Item item2 = new Item(2L, "Item 2", "Desc 2", "NEW", "email2@test.com"); // Save for this one will fail.
-
-        when(itemRepository.findAllItemIds()).thenReturn(Arrays.asList(1L, 2L));
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(item1));
-        when(itemRepository.findById(2L)).thenReturn(Optional.of(item2));
-
-        // item1 saves fine.
-        when(itemRepository.save(argThat(item -> item.getId().equals(1L)))).thenAnswer(inv -> {
-            Item i = inv.getArgument(0);
-            i.setStatus("PROCESSED");
-            return i;
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), eq(2L), any(Pageable.class))).thenReturn(List.of());
+        // Any statement touching item2 throws, which also takes down the bulk update for the chunk.
+        when(itemRepository.updateStatusByIds(anyCollection(), eq(ItemStatus.PROCESSED), eq(job.getId()))).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            if (ids.contains(2L)) {
+                throw new RuntimeException("Simulated database save error for item 2");
+            }
+            return ids.size();
         });
-        // item2 save throws an error!
-        when(itemRepository.save(argThat(item -> item.getId().equals(2L))))
-                .thenThrow(new RuntimeException("Simulated database save error for item 2"));
 
-        CompletableFuture<List<Item>> futureResult = itemService.processItemsAsync();
-        List<Item> processedItems = futureResult.get(5, TimeUnit.SECONDS);
+        itemService.processItemsAsync(job).get(5, TimeUnit.SECONDS);
 
-        assertNotNull(processedItems);
-        assertEquals(1, processedItems.size(), "Only item1 should be successfully processed.");
-        assertEquals(1L, processedItems.get(0).getId());
-        assertEquals("PROCESSED", processedItems.get(0).getStatus());
+        assertEquals(ItemProcessingJob.Status.COMPLETED, job.getStatus());
+        assertEquals(1, job.getProcessed(), "Only item1 should be successfully processed.");
+        assertEquals(1, job.getFailed());
+        assertArrayEquals(new long[]{2L}, job.toSummary().failedIds(), "The failed id should be remembered.");
 
-        // Verify save was attempted for both, even if one failed.
-        verify(itemRepository, times(1)).save(argThat(i -> i.getId().equals(1L)));
-        verify(itemRepository, times(1)).save(argThat(i -> i.getId().equals(2L)));
+        // Verify the update was attempted for both on the slow path, even if one failed.
+        verify(itemRepository, times(1)).updateStatusByIds(List.of(1L), ItemStatus.PROCESSED, job.getId());
+        verify(itemRepository, times(1)).updateStatusByIds(List.of(2L), ItemStatus.PROCESSED, job.getId());
     }
 
-}
\ No newline at end of file
+    // Another node holds part of the chunk: we only process what we claimed, and skip chunks we got nothing of.
+    @Test
+    void processItemsAsync_whenAnotherNodeClaimedItems_shouldOnlyProcessOwnClaims() throws Exception {
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), eq(2L), any(Pageable.class))).thenReturn(List.of(3L, 4L));
+        when(itemRepository.findIdsByStatusAfter(eq(ItemStatus.NEW), eq(4L), any(Pageable.class))).thenReturn(List.of());
+        // Item 2 and the whole second chunk are leased to the other node.
+        when(itemRepository.claimIds(eq(List.of(1L, 2L)), eq(ItemStatus.NEW), eq(job.getId()), any(Instant.class), any(Instant.class)))
+                .thenReturn(1);
+        when(itemRepository.claimIds(eq(List.of(3L, 4L)), eq(ItemStatus.NEW), eq(job.getId()), any(Instant.class), any(Instant.class)))
+                .thenReturn(0);
+        when(itemRepository.findClaimedIds(List.of(1L, 2L), job.getId())).thenReturn(List.of(1L));
+        when(itemRepository.updateStatusByIds(List.of(1L), ItemStatus.PROCESSED, job.getId())).thenReturn(1);
+
+        itemService.processItemsAsync(job).get(5, TimeUnit.SECONDS);
+
+        assertEquals(ItemProcessingJob.Status.COMPLETED, job.getStatus());
+        assertEquals(1, job.getProcessed());
+        verify(itemRepository, times(1)).updateStatusByIds(anyCollection(), any(), any()); // Nothing for ids 2, 3, 4.
+    }
+
+    // Second run right after the first: nothing pending, so nothing is updated.
+    @Test
+    void processItemsAsync_whenNothingPending_shouldNotTouchProcessedItems() throws Exception {
+        // PROCESSED items aren't in any pending status range, so both keyset reads come back empty.
+        itemService.processItemsAsync(job).get(5, TimeUnit.SECONDS);
+
+        assertEquals(ItemProcessingJob.Status.COMPLETED, job.getStatus());
+        assertEquals(0, job.getProcessed());
+        verify(itemRepository, times(1)).findIdsByStatusAfter(eq(ItemStatus.NEW), eq(0L), any(Pageable.class));
+        verify(itemRepository, times(1)).findIdsByStatusAfter(eq(ItemStatus.PENDING), eq(0L), any(Pageable.class));
+        verify(itemRepository, never()).findIdsByStatusAfter(eq(ItemStatus.PROCESSED), anyLong(), any(Pageable.class));
+        verify(itemRepository, never()).updateStatusByIds(anyCollection(), any(), any());
+    }
+
+    // If reading blows up the whole job fails, and the tracker says so.
+    @Test
+    void processItemsAsync_whenReadFails_shouldMarkJobFailed() {
+        when(itemRepository.findIdsByStatusAfter(any(ItemStatus.class), anyLong(), any(Pageable.class)))
+                .thenThrow(new RuntimeException("Simulated connection loss"));
+
+        CompletableFuture<ItemProcessingJob> futureResult = itemService.processItemsAsync(job);
+
+        assertTrue(futureResult.isCompletedExceptionally());
+        assertEquals(ItemProcessingJob.Status.FAILED, job.getStatus());
+        assertEquals("Simulated connection loss", job.getError());
+    }
+
+    // Creating a job sizes it from the pending items only, and it can be found again by id.
+    @Test
+    void createProcessingJob_shouldRegisterJobWithTotal() {
+        when(itemRepository.countByStatus(ItemStatus.NEW)).thenReturn(40L);
+        when(itemRepository.countByStatus(ItemStatus.PENDING)).thenReturn(2L);
+
+        ItemProcessingJob created = itemService.createProcessingJob();
+
+        assertEquals(42L, created.getTotalItems());
+        verify(itemRepository, never()).countByStatus(ItemStatus.PROCESSED);
+        assertEquals(ItemProcessingJob.Status.RUNNING, created.getStatus());
+        assertSame(created, itemService.findProcessingJob(created.getId()).orElseThrow());
+    }
+}